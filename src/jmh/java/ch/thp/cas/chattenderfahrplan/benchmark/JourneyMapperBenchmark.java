@@ -0,0 +1,94 @@
+package ch.thp.cas.chattenderfahrplan.benchmark;
+
+import ch.thp.cas.chattenderfahrplan.journeyservice.JourneyMapper;
+import ch.thp.cas.chattenderfahrplan.journeyservice.StreamingJourneyMapper;
+import ch.thp.cas.chattenderfahrplan.mapping.FlatMapper;
+import ch.thp.cas.chattenderfahrplan.mapping.FlatPlan;
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping-Hot-Path: Throughput und Latenz-Verteilung (SampleTime), Allokationsrate via {@code -prof gc}.
+ * <p>
+ * {@code *Tree} misst nur das Mapping auf einem vorgeparsten Baum, {@code *TreeWithParse} den Weg, den
+ * {@code mapping.engine=tree} tatsaechlich geht, {@code *Streaming} den Default-Pfad direkt auf den Bytes.
+ * {@code options*} hoeren nach {@value #MAX_OPTIONS} Trips auf (listJourneys mit einer Suche), {@code allOptions*}
+ * lesen wie die Pager-Slices den ganzen Payload.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JourneyMapperBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_OPTIONS = 6;
+
+    @Benchmark
+    public PlanResult itineraryTree(TripsCorpus c) {
+        return JourneyMapper.toPlanResultItinerary(c.tree);
+    }
+
+    @Benchmark
+    public PlanResult itineraryTreeWithParse(TripsCorpus c) throws IOException {
+        return JourneyMapper.toPlanResultItinerary(MAPPER.readTree(c.bytes));
+    }
+
+    @Benchmark
+    public PlanResult itineraryStreaming(TripsCorpus c) {
+        return StreamingJourneyMapper.toPlanResultItinerary(c.bytes);
+    }
+
+    @Benchmark
+    public PlanResult optionsTree(TripsCorpus c) {
+        return JourneyMapper.toPlanResultOptions(c.tree, MAX_OPTIONS);
+    }
+
+    @Benchmark
+    public PlanResult optionsTreeWithParse(TripsCorpus c) throws IOException {
+        return JourneyMapper.toPlanResultOptions(MAPPER.readTree(c.bytes), MAX_OPTIONS);
+    }
+
+    @Benchmark
+    public PlanResult optionsStreaming(TripsCorpus c) {
+        return StreamingJourneyMapper.toPlanResultOptions(c.bytes, MAX_OPTIONS);
+    }
+
+    @Benchmark
+    public PlanResult allOptionsTreeWithParse(TripsCorpus c) throws IOException {
+        return JourneyMapper.toPlanResultOptions(MAPPER.readTree(c.bytes), 0);
+    }
+
+    @Benchmark
+    public PlanResult allOptionsStreaming(TripsCorpus c) {
+        return StreamingJourneyMapper.toPlanResultOptions(c.bytes, 0);
+    }
+
+    @Benchmark
+    public List<FlatPlan> flatPlansTree(TripsCorpus c) {
+        return JourneyMapper.toFlatPlans(c.tree, MAX_OPTIONS);
+    }
+
+    @Benchmark
+    public List<FlatPlan> flatPlansStreaming(TripsCorpus c) {
+        return StreamingJourneyMapper.toFlatPlans(c.bytes, MAX_OPTIONS);
+    }
+
+    /** FlatMapper isoliert, auf allen Optionen des Payloads */
+    @Benchmark
+    public FlatPlan toFlat(TripsCorpus c) {
+        return FlatMapper.toFlat(c.options);
+    }
+}
@@ -0,0 +1,86 @@
+package ch.thp.cas.chattenderfahrplan.benchmark;
+
+import ch.thp.cas.chattenderfahrplan.journeyservice.JourneyMapper;
+import ch.thp.cas.chattenderfahrplan.mapping.CompactJourneys;
+import ch.thp.cas.chattenderfahrplan.mapping.FlatPlan;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tool-Resultat json vs. compact: Serialisierungszeit plus Groesse pro Resultat als Aux-Counter
+ * ({@code bytes}, {@code tokens}). Die Token-Zahl ist eine Schaetzung (Woerter, Zifferngruppen zu 3 und
+ * Satzzeichen je ein Token), gut fuer den Vergleich der Formate, nicht fuer Kosten eines bestimmten Modells.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputFormatBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern TOKEN = Pattern.compile("\\p{L}+|\\p{N}{1,3}|[^\\s\\p{L}\\p{N}]");
+
+    @State(Scope.Thread)
+    public static class Plans {
+        List<FlatPlan> plans;
+
+        @Setup(Level.Trial)
+        public void load(TripsCorpus c) {
+            plans = JourneyMapper.toFlatPlans(c.options);
+        }
+    }
+
+    /** Groesse des zuletzt serialisierten Resultats (konstant pro Payload, daher zugewiesen statt summiert) */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Size {
+        public long bytes;
+        public long tokens;
+
+        void record(byte[] out) {
+            bytes = out.length;
+            // einmal geschaetzt, die Regex soll die gemessene Zeit nicht verfaelschen
+            if (tokens == 0) tokens = estimateTokens(new String(out, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Benchmark
+    public byte[] json(Plans p, Size size) throws JsonProcessingException {
+        byte[] out = MAPPER.writeValueAsBytes(p.plans);
+        size.record(out);
+        return out;
+    }
+
+    @Benchmark
+    public byte[] compact(Plans p, Size size) throws JsonProcessingException {
+        byte[] out = MAPPER.writeValueAsBytes(CompactJourneys.of(p.plans));
+        size.record(out);
+        return out;
+    }
+
+    static long estimateTokens(String text) {
+        Matcher m = TOKEN.matcher(text);
+        long n = 0;
+        while (m.find()) n++;
+        return n;
+    }
+}
@@ -0,0 +1,129 @@
+package ch.thp.cas.chattenderfahrplan.benchmark;
+
+import ch.thp.cas.chattenderfahrplan.journeyservice.JourneyMapper;
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Payload-Korpus fuer die Benchmarks.
+ * <p>
+ * small: fixtures/trips-bern-zuerich.json wie aufgenommen (9 Trips).
+ * typical: dieselben Trips auf 16 aufgefuellt, etwa was der journey-service pro Suche liefert.
+ * worst-case: die 16 Trips von typical, jede Fahrt mit so vielen weiteren Halten, dass ~4 MB erreicht werden
+ * (knapp unter dem WebClient-Limit von 5 MB). So sehen grosse Antworten aus: lange stopPoints-Listen pro Trip,
+ * nicht viele kleine Trips. Synthetisch, bis eine grosse Antwort aufgenommen ist.
+ * <p>
+ * Mit {@code -Dfixtures.dir=...} und {@code -Djmh.params=payload=<datei>.json,...} laufen dieselben
+ * Benchmarks auf aufgezeichneten Antworten (aufnehmen mit dem Simulator im record-Modus, siehe readme).
+ */
+@State(Scope.Benchmark)
+public class TripsCorpus {
+
+    static final String FIXTURE = "/fixtures/trips-bern-zuerich.json";
+    static final int TYPICAL_TRIPS = 16;
+    static final int WORST_CASE_BYTES = 4 * 1024 * 1024;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Param({"small", "typical", "worst-case"})
+    public String payload;
+
+    /** Roh-Bytes wie vom WebClient geliefert */
+    public byte[] bytes;
+    /** vorgeparster Baum, um Parse- und Mapping-Kosten getrennt zu messen */
+    public JsonNode tree;
+    /** Eingabe fuer FlatMapper */
+    public PlanResult options;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        byte[] fixture = read(FIXTURE);
+        bytes = switch (payload) {
+            case "small" -> fixture;
+            case "typical" -> replicate(fixture, t -> t >= TYPICAL_TRIPS);
+            case "worst-case" -> inflateStopPoints(replicate(fixture, t -> t >= TYPICAL_TRIPS));
+            default -> recorded(payload);
+        };
+        tree = MAPPER.readTree(bytes);
+        options = JourneyMapper.toPlanResultOptions(tree, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Fuegt in jede Fahrt (PTRideLeg) vor dem letzten Halt weitere Zwischenhalte ein, bis der Payload ~4 MB hat.
+     * Die eingefuegten Halte tragen weder routeIndex noch stopUse/forBoarding/forAlighting, so bleiben Ein- und
+     * Ausstieg dieselben und das Mapping-Resultat aendert sich nicht; gelesen werden muessen sie trotzdem.
+     */
+    private static byte[] inflateStopPoints(byte[] payload) throws IOException {
+        JsonNode root = MAPPER.readTree(payload);
+        List<ArrayNode> rides = new ArrayList<>();
+        for (JsonNode trip : root.path("trips")) {
+            for (JsonNode leg : trip.path("legs")) {
+                if (leg.path("serviceJourney").path("stopPoints") instanceof ArrayNode stops && stops.size() > 1) {
+                    rides.add(stops);
+                }
+            }
+        }
+        if (rides.isEmpty()) throw new IllegalStateException("Fixture without stop points");
+        long perRide = (WORST_CASE_BYTES - (long) MAPPER.writeValueAsBytes(root).length) / rides.size();
+        for (ArrayNode stops : rides) {
+            ObjectNode template = ((ObjectNode) stops.get(0)).deepCopy();
+            template.remove(List.of("routeIndex", "stopUse", "forBoarding", "forAlighting"));
+            if (!template.has("arrival") && template.has("departure")) template.set("arrival", template.get("departure"));
+            // Groesse kompakt serialisiert, wie vom journey-service geliefert
+            long count = perRide / MAPPER.writeValueAsBytes(template).length;
+            for (long i = 0; i < count; i++) {
+                ObjectNode stop = template.deepCopy();
+                if (stop.path("place") instanceof ObjectNode place) place.put("id", "85" + (10000 + i));
+                stops.insert(stops.size() - 1, stop);
+            }
+        }
+        return MAPPER.writeValueAsBytes(root);
+    }
+
+    private static byte[] replicate(byte[] fixture, IntPredicate enough) throws IOException {
+        JsonNode root = MAPPER.readTree(fixture);
+        ArrayNode source = (ArrayNode) root.path("trips");
+        ObjectNode out = MAPPER.createObjectNode();
+        ArrayNode trips = out.putArray("trips");
+        for (int i = 0; !enough.test(trips.size()); i++) {
+            ObjectNode copy = source.get(i % source.size()).deepCopy();
+            copy.put("id", "t" + i);
+            trips.add(copy);
+        }
+        return MAPPER.writeValueAsBytes(out);
+    }
+
+    private static byte[] recorded(String name) throws IOException {
+        String dir = System.getProperty("fixtures.dir", "");
+        if (dir.isBlank()) {
+            throw new IllegalArgumentException("Unknown payload '" + name + "' (set -Dfixtures.dir for recorded payloads)");
+        }
+        return Files.readAllBytes(Path.of(dir).resolve(name));
+    }
+
+    private static byte[] read(String resource) {
+        try (InputStream in = TripsCorpus.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalStateException("Missing fixture " + resource);
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ch.thp.cas.chattenderfahrplan;
+
+import ch.thp.cas.chattenderfahrplan.TimetableTool.BatchResult;
+import ch.thp.cas.chattenderfahrplan.TimetableTool.JourneyListResult;
+import ch.thp.cas.chattenderfahrplan.TimetableTool.JourneyQuery;
+import ch.thp.cas.chattenderfahrplan.TimetableTool.JourneyResult;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Non-blocking variant of {@link TimetableTool} for {@code spring.ai.mcp.server.type: ASYNC}.
+ * <p>
+ * Same tool names, descriptions, parameters (incl. required) and results ({@code ToolContractTest}); the methods
+ * return the reactive core of {@link TimetableTool} without {@code .block()}, so an in-flight call holds no thread
+ * while waiting for the journey-service.
+ * Registered via the MCP annotation scanner (reactive return types are picked up by the ASYNC server only).
+ */
+@Service
+@ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "type", havingValue = "ASYNC")
+public class AsyncTimetableTool {
+
+    private final TimetableTool tools;
+
+    public AsyncTimetableTool(TimetableTool timetableTool) {
+        this.tools = timetableTool;
+    }
+
+    @McpTool(name = "datum", description = ToolDescriptions.DATUM)
+    public Mono<LocalDate> datum() {
+        return Mono.fromSupplier(tools::datum);
+    }
+
+    @McpTool(name = "nextJourney", description = ToolDescriptions.NEXT_JOURNEY)
+    public Mono<JourneyResult> nextJourney(
+            @McpToolParam(description = ToolDescriptions.ORIGIN) String origin,
+            @McpToolParam(description = ToolDescriptions.DESTINATION) String destination,
+            @McpToolParam(description = ToolDescriptions.USER_LANGUAGE) String userLanguage
+    ) {
+        return tools.nextJourneyAsync(origin, destination, userLanguage);
+    }
+
+    @McpTool(name = "planJourney", description = ToolDescriptions.PLAN_JOURNEY)
+    public Mono<JourneyResult> planJourney(
+            @McpToolParam(description = ToolDescriptions.ORIGIN) String origin,
+            @McpToolParam(description = ToolDescriptions.DESTINATION) String destination,
+            @McpToolParam(description = ToolDescriptions.DEPARTURE_DATETIME) String datetime,
+            @McpToolParam(description = ToolDescriptions.USER_LANGUAGE) String userLanguage
+    ) {
+        return tools.planJourneyAsync(origin, destination, datetime, userLanguage);
+    }
+
+    @McpTool(name = "listJourneys", description = ToolDescriptions.LIST_JOURNEYS)
+    public Mono<JourneyListResult> listJourneys(
+            @McpToolParam(description = ToolDescriptions.ORIGIN) String origin,
+            @McpToolParam(description = ToolDescriptions.DESTINATION) String destination,
+            @McpToolParam(description = ToolDescriptions.LIMIT) Integer limit,
+            @McpToolParam(description = ToolDescriptions.USER_LANGUAGE_OPTIONAL) String userLanguage,
+            @McpToolParam(description = ToolDescriptions.FORMAT, required = false) String format
+    ) {
+        return tools.listJourneysAsync(origin, destination, limit, userLanguage, format);
+    }
+
+    @McpTool(name = "listAndPlanJourneys", description = ToolDescriptions.LIST_AND_PLAN_JOURNEYS)
+    public Mono<JourneyListResult> listAndPlanJourneys(
+            @McpToolParam(description = ToolDescriptions.ORIGIN) String origin,
+            @McpToolParam(description = ToolDescriptions.DESTINATION) String destination,
+            @McpToolParam(description = ToolDescriptions.START_DATETIME) String datetime,
+            @McpToolParam(description = ToolDescriptions.LIMIT) Integer limit,
+            @McpToolParam(description = ToolDescriptions.USER_LANGUAGE) String userLanguage,
+            @McpToolParam(description = ToolDescriptions.FORMAT, required = false) String format
+    ) {
+        return tools.listAndPlanJourneysAsync(origin, destination, datetime, limit, userLanguage, format);
+    }
+
+    @McpTool(name = "planJourneysBatch", description = ToolDescriptions.PLAN_JOURNEYS_BATCH)
+    public Mono<BatchResult> planJourneysBatch(
+            @McpToolParam(description = ToolDescriptions.JOURNEY_QUERIES) List<JourneyQuery> queries,
+            @McpToolParam(description = ToolDescriptions.USER_LANGUAGE_OPTIONAL, required = false) String userLanguage
+    ) {
+        return tools.planJourneysBatchAsync(queries, userLanguage);
+    }
+
+    // raw bleibt wie in TimetableTool unveroeffentlicht: tools.rawAsync(...)
+}
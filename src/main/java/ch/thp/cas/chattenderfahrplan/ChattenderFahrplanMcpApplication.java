@@ -1,19 +1,25 @@
 package ch.thp.cas.chattenderfahrplan;
 
+import ch.thp.cas.chattenderfahrplan.infrastructure.NativeRuntimeHints;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class ChattenderFahrplanMcpApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(ChattenderFahrplanMcpApplication.class, args);
     }
 
+    /** SYNC server: blocking tools. ASYNC registers {@link AsyncTimetableTool} instead. */
     @Bean
+    @ConditionalOnProperty(prefix = "spring.ai.mcp.server", name = "type", havingValue = "SYNC", matchIfMissing = true)
     public ToolCallbackProvider timetableTools(TimetableTool timetableService) {
         return MethodToolCallbackProvider.builder().toolObjects(timetableService).build();
     }
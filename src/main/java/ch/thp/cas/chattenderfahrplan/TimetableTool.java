@@ -1,25 +1,38 @@
 package ch.thp.cas.chattenderfahrplan;
 
+import ch.thp.cas.chattenderfahrplan.infrastructure.JourneyMetrics;
+import ch.thp.cas.chattenderfahrplan.journeyservice.Deadline;
+import ch.thp.cas.chattenderfahrplan.journeyservice.HotRoutes;
 import ch.thp.cas.chattenderfahrplan.journeyservice.JourneyService;
 import ch.thp.cas.chattenderfahrplan.journeyservice.PlacesResolver;
+import ch.thp.cas.chattenderfahrplan.journeyservice.UpstreamUnavailableException;
+import ch.thp.cas.chattenderfahrplan.mapping.CompactJourneys;
 import ch.thp.cas.chattenderfahrplan.mapping.FlatPlan;
 import ch.thp.cas.chattenderfahrplan.mapping.PlanResult;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -30,6 +43,7 @@ import java.util.stream.Collectors;
  * - planJourney → use for exact departure date/time
  * - listJourneys → multiple options from now (today)
  * - listAndPlanJourneys → multiple options from a given time
+ * - planJourneysBatch → several origin/destination pairs in one call
  * - raw → raw JSON from the journey service (debug / advanced)
  * <p>
  * Time zone: Europe/Zurich
@@ -47,12 +61,32 @@ public class TimetableTool {
 
     private final JourneyService journeys;
     private final PlacesResolver places;
+    private final HotRoutes hotRoutes;
+    private final JourneyMetrics metrics;
     private final Map<String, String> disclaimersByLanguage;
-
-    public TimetableTool(JourneyService journeys, PlacesResolver placesResolver) {
+    private final Duration toolBudget;
+    private final Duration placesBudget;
+    private final String defaultFormat;
+    private final int batchMaxEntries;
+    private final int batchParallelism;
+
+    public TimetableTool(JourneyService journeys, PlacesResolver placesResolver, HotRoutes hotRoutes,
+                         JourneyMetrics journeyMetrics,
+                         @Value("${chattender.fahrplan.upstream.budget.tool:15s}") Duration toolBudget,
+                         @Value("${chattender.fahrplan.upstream.budget.places-share:0.4}") double placesShare,
+                         @Value("${chattender.fahrplan.output.format:json}") String outputFormat,
+                         @Value("${chattender.fahrplan.batch.max-entries:10}") int batchMaxEntries,
+                         @Value("${chattender.fahrplan.batch.max-parallel:4}") int batchParallelism) {
         this.journeys = journeys;
         this.places = placesResolver;
+        this.hotRoutes = hotRoutes;
+        this.metrics = journeyMetrics;
+        this.toolBudget = toolBudget;
+        this.placesBudget = Duration.ofNanos((long) (toolBudget.toNanos() * placesShare));
         this.disclaimersByLanguage = loadDisclaimers();
+        this.defaultFormat = format(outputFormat, "json");
+        this.batchMaxEntries = Math.max(1, batchMaxEntries);
+        this.batchParallelism = Math.max(1, batchParallelism);
     }
 
     /**
@@ -60,10 +94,7 @@ public class TimetableTool {
      */
     @Tool(
             name = "datum",
-            description = """
-                    Returns today's date in the Europe/Zurich time zone.
-                    Use this when you need an explicit date (e.g. to build an ISO-8601 datetime).
-                    """
+            description = ToolDescriptions.DATUM
     )
     public LocalDate datum() {
         return LocalDate.now(ZURICH);
@@ -79,237 +110,310 @@ public class TimetableTool {
     }
 
     /**
-     * Journey list + disclaimer wrapper for LLM.
+     * Journey list + disclaimer wrapper for LLM. Either journeys (format json) or compact (format compact) is set.
      */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public record JourneyListResult(
             List<FlatPlan> journeys,
+            CompactJourneys compact,
+            String disclaimer
+    ) {
+    }
+
+    /**
+     * One entry of a planJourneysBatch call.
+     */
+    public record JourneyQuery(
+            @JsonPropertyDescription(ToolDescriptions.ORIGIN) String origin,
+            @JsonPropertyDescription(ToolDescriptions.DESTINATION) String destination,
+            @JsonPropertyDescription(ToolDescriptions.START_DATETIME_OPTIONAL) String datetime
+    ) {
+    }
+
+    /**
+     * Result of one batch entry: either journey or error is set.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record BatchEntry(
+            String origin,
+            String destination,
+            String datetime,
+            PlanResult journey,
+            String error
+    ) {
+    }
+
+    /**
+     * Batch results in the order of the request + disclaimer wrapper for LLM.
+     */
+    public record BatchResult(
+            List<BatchEntry> results,
             String disclaimer
     ) {
     }
 
     @Tool(
             name = "nextJourney",
-            description = """
-                    Returns the next connection from now between origin and destination.
-                    
-                    Use this for queries like "next departure", "now", or "soon".
-                    
-                    CONTRACT FOR ARGUMENTS:
-                    - The 'origin' and 'destination' arguments MUST be Swiss station names written in Latin letters
-                      (e.g. "Bern", "Zuerich HB", "Zuerich Flughafen", "Jungfraujoch").
-                    - If the user provides station names in another script (e.g. Chinese, Thai, Arabic),
-                      FIRST translate or transliterate them to the official station name in Latin letters
-                      before calling this tool.
-                    
-                    IMPORTANT FOR THE ASSISTANT:
-                    - Always answer in the same language as the user's last message.
-                    - The optional parameter 'userLanguage' should be set to the user's language (ISO 639-1, e.g. "de", "fr", "en").
-                    - The tool returns a localized disclaimer; keep it in the answer so the user is reminded to verify on https://www.sbb.ch/.
-                    """
+            description = ToolDescriptions.NEXT_JOURNEY
     )
     public JourneyResult nextJourney(
-            @ToolParam(description = "Departure location as Swiss station name in Latin letters, e.g. 'Bern', 'Zuerich Flughafen'") String origin,
-            @ToolParam(description = "Arrival location as Swiss station name in Latin letters, e.g. 'Zuerich HB', 'Jungfraujoch'") String destination,
-            @ToolParam(
-                    description = """
-                            user language as ISO 639-1 code (e.g. "de", "fr", "it", "en").
-                            BCP 47 tags like "de-CH" are also accepted and will be normalized to their base language.
-                            If not provided or unknown, the disclaimer will be in English.
-                            """
-            ) String userLanguage
+            @ToolParam(description = ToolDescriptions.ORIGIN) String origin,
+            @ToolParam(description = ToolDescriptions.DESTINATION) String destination,
+            @ToolParam(description = ToolDescriptions.USER_LANGUAGE) String userLanguage
     ) {
-        var originId = places.resolveStopPlaceId(origin);
-        var destId = places.resolveStopPlaceId(destination);
-        var when = OffsetDateTime.now(ZURICH);
-
-        var plan = journeys.planJourneyText(originId, destId, when);
-        var disclaimer = resolveDisclaimer(userLanguage);
-
-        return new JourneyResult(plan, disclaimer);
+        return nextJourneyAsync(origin, destination, userLanguage).block();
     }
 
     @Tool(
             name = "planJourney",
-            description = """
-                    Returns a journey for a given departure datetime (ISO 8601 with offset).
-                    
-                    Use this for queries like "today at 14:35", "tomorrow 07:10", or with an explicit date/time.
-                    
-                    CONTRACT FOR ARGUMENTS:
-                    - The 'origin' and 'destination' MUST be Swiss station names written in Latin letters
-                      (e.g. "Bern", "Zuerich HB", "Zuerich Flughafen", "Jungfraujoch").
-                      If the user provides other scripts, first translate or transliterate them to Latin station names.
-                    - The 'datetime' argument MUST be an ISO-8601 datetime with offset, e.g. "2025-11-11T14:35:00+01:00".
-                    - If the date is missing, you can call the 'datum' tool to obtain today's date.
-                    - If the user does not provide a time, ask for a departure time.
-                    
-                    IMPORTANT FOR THE ASSISTANT:
-                    - Always answer in the same language as the user's last message.
-                    - The optional parameter 'userLanguage' should be set to the user's language (ISO 639-1, e.g. "de", "fr", "en").
-                    - The tool returns a localized disclaimer; keep it in the answer so the user is reminded to verify on https://www.sbb.ch/.
-                    """
+            description = ToolDescriptions.PLAN_JOURNEY
     )
     public JourneyResult planJourney(
-            @ToolParam(description = "Departure location as Swiss station name in Latin letters, e.g. 'Bern', 'Zuerich Flughafen'") String origin,
-            @ToolParam(description = "Arrival location as Swiss station name in Latin letters, e.g. 'Zuerich HB', 'Jungfraujoch'") String destination,
-            @ToolParam(
-                    description = """
-                            Departure datetime in ISO 8601 format with offset, e.g. "2025-11-11T14:35:00+01:00".
-                            The datetime MUST include an offset suitable for Europe/Zurich.
-                            """
-            ) String datetime,
-            @ToolParam(
-                    description = """
-                            user language as ISO 639-1 code (e.g. "de", "fr", "it", "en").
-                            BCP 47 tags like "de-CH" are also accepted and will be normalized to their base language.
-                            If not provided or unknown, the disclaimer will be in English.
-                            """
-            ) String userLanguage
+            @ToolParam(description = ToolDescriptions.ORIGIN) String origin,
+            @ToolParam(description = ToolDescriptions.DESTINATION) String destination,
+            @ToolParam(description = ToolDescriptions.DEPARTURE_DATETIME) String datetime,
+            @ToolParam(description = ToolDescriptions.USER_LANGUAGE) String userLanguage
     ) {
-        var originId = places.resolveStopPlaceId(origin);
-        var destId = places.resolveStopPlaceId(destination);
-        var when = parseIsoOffset(datetime);
-
-        var plan = journeys.planJourneyText(originId, destId, when);
-        var disclaimer = resolveDisclaimer(userLanguage);
-
-        return new JourneyResult(plan, disclaimer);
+        return planJourneyAsync(origin, destination, datetime, userLanguage).block();
     }
 
     @Tool(
             name = "listJourneys",
-            description = """
-                    Lists multiple connections from now for today.
-                    
-                    Use this when the user asks for several options or alternative connections.
-                    
-                    CONTRACT FOR ARGUMENTS:
-                    - The 'origin' and 'destination' MUST be Swiss station names written in Latin letters
-                      (e.g. "Bern", "Zuerich HB", "Zuerich Flughafen", "Jungfraujoch").
-                      If the user provides other scripts, first translate or transliterate them to Latin station names.
-                    
-                    Returns a JSON-compatible list of FlatPlan objects plus a disclaimer.
-                    
-                    IMPORTANT FOR THE ASSISTANT:
-                    - Always answer in the same language as the user's last message.
-                    - The optional parameter 'userLanguage' should be set to the user's language (ISO 639-1, e.g. "de", "fr", "en").
-                    - The tool returns a localized disclaimer; keep it in the answer so the user is reminded to verify on https://www.sbb.ch/.
-                    """
+            description = ToolDescriptions.LIST_JOURNEYS
     )
     public JourneyListResult listJourneys(
-            @ToolParam(description = "Departure location as Swiss station name in Latin letters, e.g. 'Bern', 'Zuerich Flughafen'") String origin,
-            @ToolParam(description = "Arrival location as Swiss station name in Latin letters, e.g. 'Zuerich HB', 'Jungfraujoch'") String destination,
-            @ToolParam(description = "Number of requested options, default 6") Integer limit,
-            @ToolParam(
-                    description = """
-                            Optional user language as ISO 639-1 code (e.g. "de", "fr", "it", "en").
-                            BCP 47 tags like "de-CH" are also accepted and will be normalized to their base language.
-                            If not provided or unknown, the disclaimer will be in English.
-                            """
-            ) String userLanguage
+            @ToolParam(description = ToolDescriptions.ORIGIN) String origin,
+            @ToolParam(description = ToolDescriptions.DESTINATION) String destination,
+            @ToolParam(description = ToolDescriptions.LIMIT) Integer limit,
+            @ToolParam(description = ToolDescriptions.USER_LANGUAGE_OPTIONAL) String userLanguage,
+            @ToolParam(description = ToolDescriptions.FORMAT, required = false) String format
     ) {
-        var originId = places.resolveStopPlaceId(origin);
-        var destId = places.resolveStopPlaceId(destination);
-        int max = limit == null || limit < 1 ? 6 : limit;
-        var when = OffsetDateTime.now(ZURICH);
-
-        var list = journeys.planJourneyJson(originId, destId, when, max);
-        var disclaimer = resolveDisclaimer(userLanguage);
-
-        return new JourneyListResult(list, disclaimer);
+        return listJourneysAsync(origin, destination, limit, userLanguage, format).block();
     }
 
     @Tool(
             name = "listAndPlanJourneys",
-            description = """
-                    Lists multiple connections starting from a given departure datetime.
-                    
-                    Use this for queries like "several options around today 16:00".
-                    
-                    CONTRACT FOR ARGUMENTS:
-                    - The 'origin' and 'destination' MUST be Swiss station names written in Latin letters
-                      (e.g. "Bern", "Zuerich HB", "Zuerich Flughafen", "Jungfraujoch").
-                      If the user provides other scripts, first translate or transliterate them to Latin station names.
-                    - If the date is unknown, you can call the 'datum' tool to obtain today's date.
-                    - The 'datetime' argument MUST be an ISO-8601 datetime with offset, e.g. "2025-11-11T14:35:00+01:00".
-                    
-                    Returns a JSON-compatible list of FlatPlan objects plus a disclaimer.
-                    
-                    IMPORTANT FOR THE ASSISTANT:
-                    - Always answer in the same language as the user's last message.
-                    - The optional parameter 'userLanguage' should be set to the user's language (ISO 639-1, e.g. "de", "fr", "en").
-                    - The tool returns a localized disclaimer; keep it in the answer so the user is reminded to verify on https://www.sbb.ch/.
-                    """
+            description = ToolDescriptions.LIST_AND_PLAN_JOURNEYS
     )
     public JourneyListResult listAndPlanJourneys(
-            @ToolParam(description = "Departure location as Swiss station name in Latin letters, e.g. 'Bern', 'Zuerich Flughafen'") String origin,
-            @ToolParam(description = "Arrival location as Swiss station name in Latin letters, e.g. 'Zuerich HB', 'Jungfraujoch'") String destination,
-            @ToolParam(
-                    description = """
-                            Start datetime in ISO 8601 format with offset, e.g. "2025-11-11T14:35:00+01:00".
-                            The datetime MUST include an offset suitable for Europe/Zurich.
-                            """
-            ) String datetime,
-            @ToolParam(description = "Number of requested options, default 6") Integer limit,
-            @ToolParam(
-                    description = """
-                            user language as ISO 639-1 code (e.g. "de", "fr", "it", "en").
-                            BCP 47 tags like "de-CH" are also accepted and will be normalized to their base language.
-                            If not provided or unknown, the disclaimer will be in English.
-                            """
-            ) String userLanguage
+            @ToolParam(description = ToolDescriptions.ORIGIN) String origin,
+            @ToolParam(description = ToolDescriptions.DESTINATION) String destination,
+            @ToolParam(description = ToolDescriptions.START_DATETIME) String datetime,
+            @ToolParam(description = ToolDescriptions.LIMIT) Integer limit,
+            @ToolParam(description = ToolDescriptions.USER_LANGUAGE) String userLanguage,
+            @ToolParam(description = ToolDescriptions.FORMAT, required = false) String format
     ) {
-        var originId = places.resolveStopPlaceId(origin);
-        var destId = places.resolveStopPlaceId(destination);
-        int max = limit == null || limit < 1 ? 6 : limit;
-        var when = parseIsoOffset(datetime);
-
-        var list = journeys.planJourneyJson(originId, destId, when, max);
-        var disclaimer = resolveDisclaimer(userLanguage);
+        return listAndPlanJourneysAsync(origin, destination, datetime, limit, userLanguage, format).block();
+    }
 
-        return new JourneyListResult(list, disclaimer);
+    @Tool(
+            name = "planJourneysBatch",
+            description = ToolDescriptions.PLAN_JOURNEYS_BATCH
+    )
+    public BatchResult planJourneysBatch(
+            @ToolParam(description = ToolDescriptions.JOURNEY_QUERIES) List<JourneyQuery> queries,
+            @ToolParam(description = ToolDescriptions.USER_LANGUAGE_OPTIONAL, required = false) String userLanguage
+    ) {
+        return planJourneysBatchAsync(queries, userLanguage).block();
     }
 
     /*@Tool(
             name = "raw",
-            description = """
-                    Returns the unprocessed JSON response from the journey service as a string.
-                    
-                    Use this when you need exact API fields, trip IDs or debug information.
-                    
-                    CONTRACT FOR ARGUMENTS:
-                    - The 'origin' and 'destination' MUST be Swiss station names written in Latin letters
-                      (e.g. "Bern", "Zuerich HB", "Zuerich Flughafen", "Jungfraujoch").
-                      If the user provides other scripts, first translate or transliterate them to Latin station names.
-                    
-                    The datetime is optional. The response can be large; avoid more than 2 reasoning loops on this.
-                    
-                    NOTE:
-                    - This tool does NOT append a disclaimer. The assistant is responsible for adding any safety notes.
-                    """
+            description = ToolDescriptions.RAW
     )*/
     public String raw(
-            @ToolParam(description = "Departure location as Swiss station name in Latin letters, e.g. 'Bern', 'Zuerich Flughafen'") String origin,
-            @ToolParam(description = "Arrival location as Swiss station name in Latin letters, e.g. 'Zuerich HB', 'Jungfraujoch'") String destination,
-            @ToolParam(
-                    description = """
-                            Optional start datetime in ISO 8601 format with offset, e.g. "2025-11-11T14:35:00+01:00".
-                            If not provided, 'now' in Europe/Zurich will be used.
-                            """
-            ) String datetime,
-            @ToolParam(description = "Number of alternatives, default 6") Integer maxAlternatives
+            @ToolParam(description = ToolDescriptions.ORIGIN) String origin,
+            @ToolParam(description = ToolDescriptions.DESTINATION) String destination,
+            @ToolParam(description = ToolDescriptions.START_DATETIME_OPTIONAL) String datetime,
+            @ToolParam(description = ToolDescriptions.MAX_ALTERNATIVES) Integer maxAlternatives
     ) {
-        var originId = places.resolveStopPlaceId(origin);
-        var destId = places.resolveStopPlaceId(destination);
-        var when = (datetime == null || datetime.isBlank())
-                ? OffsetDateTime.now(ZURICH)
-                : parseIsoOffset(datetime);
-        int max = maxAlternatives == null || maxAlternatives < 1 ? 6 : maxAlternatives;
-        return journeys.rawTripSearch(originId, destId, when, max);
+        return rawAsync(origin, destination, datetime, maxAlternatives).block();
+    }
+
+    // --- reactive core, shared with AsyncTimetableTool ------------------------
+
+    Mono<JourneyResult> nextJourneyAsync(String origin, String destination, String userLanguage) {
+        return Mono.defer(() -> {
+            var when = OffsetDateTime.now(ZURICH);
+            return withStopPlaces(origin, destination,
+                    (originId, destId) -> journeys.planItinerary(originId, destId, when))
+                    .transform(metrics.tool("nextJourney", (PlanResult p) -> p.options().size()))
+                    .map(plan -> new JourneyResult(plan, resolveDisclaimer(userLanguage)));
+        });
+    }
+
+    Mono<JourneyResult> planJourneyAsync(String origin, String destination, String datetime, String userLanguage) {
+        return Mono.defer(() -> {
+            var when = parseIsoOffset(datetime);
+            return withStopPlaces(origin, destination,
+                    (originId, destId) -> journeys.planItinerary(originId, destId, when))
+                    .transform(metrics.tool("planJourney", (PlanResult p) -> p.options().size()))
+                    .map(plan -> new JourneyResult(plan, resolveDisclaimer(userLanguage)));
+        });
+    }
+
+    Mono<JourneyListResult> listJourneysAsync(String origin, String destination, Integer limit, String userLanguage,
+                                              String format) {
+        return Mono.defer(() -> {
+            int max = limit == null || limit < 1 ? 6 : limit;
+            String fmt = format(format, defaultFormat);
+            var when = OffsetDateTime.now(ZURICH);
+            return withStopPlaces(origin, destination,
+                    (originId, destId) -> journeys.planFlatPlans(originId, destId, when, max))
+                    .transform(metrics.tool("listJourneys", List::size))
+                    .map(list -> listResult(list, fmt, userLanguage));
+        });
+    }
+
+    Mono<JourneyListResult> listAndPlanJourneysAsync(String origin, String destination, String datetime,
+                                                     Integer limit, String userLanguage, String format) {
+        return Mono.defer(() -> {
+            int max = limit == null || limit < 1 ? 6 : limit;
+            String fmt = format(format, defaultFormat);
+            var when = parseIsoOffset(datetime);
+            return withStopPlaces(origin, destination,
+                    (originId, destId) -> journeys.planFlatPlans(originId, destId, when, max))
+                    .transform(metrics.tool("listAndPlanJourneys", List::size))
+                    .map(list -> listResult(list, fmt, userLanguage));
+        });
+    }
+
+    /**
+     * Batch: every distinct station name is resolved exactly once, then the searches run with up to
+     * max-parallel in flight. Errors (unknown station, invalid datetime, upstream) stay with their entry
+     * and do not affect the other entries. The budget applies to the whole batch.
+     */
+    Mono<BatchResult> planJourneysBatchAsync(List<JourneyQuery> queries, String userLanguage) {
+        return Mono.defer(() -> {
+            if (queries == null || queries.isEmpty()) {
+                return Mono.error(new IllegalArgumentException("queries must contain at least one entry"));
+            }
+            if (queries.size() > batchMaxEntries) {
+                return Mono.error(new IllegalArgumentException(
+                        "At most " + batchMaxEntries + " entries per batch, got " + queries.size()));
+            }
+            long deadline = System.nanoTime() + toolBudget.toNanos();
+            var names = new LinkedHashSet<String>();
+            for (JourneyQuery q : queries) {
+                if (q == null) continue;
+                if (q.origin() != null) names.add(q.origin());
+                if (q.destination() != null) names.add(q.destination());
+            }
+            return Flux.fromIterable(names)
+                    .flatMap(name -> places.resolveStopPlaceIdAsync(name)
+                            .transform(Deadline.after(placesBudget))
+                            .timeout(placesBudget, Mono.error(() -> budgetExceeded("station lookup")))
+                            // jeder Name landet in ids, auch wenn die Suche leer endet
+                            .switchIfEmpty(Mono.error(() -> new IllegalArgumentException("No StopPlace for: " + name)))
+                            .map(id -> Map.entry(name, Resolved.of(id)))
+                            .onErrorResume(e -> Mono.just(Map.entry(name, Resolved.failed(e)))), batchParallelism)
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                    .flatMapMany(ids -> Flux.fromIterable(queries)
+                            .flatMapSequential(q -> batchEntry(q, ids, deadline), batchParallelism))
+                    .collectList()
+                    .transform(metrics.tool("planJourneysBatch",
+                            (List<BatchEntry> entries) -> (int) entries.stream().filter(e -> e.journey() != null).count()))
+                    .map(entries -> new BatchResult(entries, resolveDisclaimer(userLanguage)));
+        });
+    }
+
+    private Mono<BatchEntry> batchEntry(JourneyQuery q, Map<String, Resolved> ids, long deadline) {
+        if (q == null || q.origin() == null || q.destination() == null) {
+            return Mono.just(batchError(q, "origin and destination are required"));
+        }
+        Resolved origin = ids.get(q.origin());
+        Resolved destination = ids.get(q.destination());
+        if (origin.error() != null) return Mono.just(batchError(q, origin.error()));
+        if (destination.error() != null) return Mono.just(batchError(q, destination.error()));
+        hotRoutes.record(origin.id(), destination.id());
+        return Mono.defer(() -> journeys.planItinerary(origin.id(), destination.id(), parseIsoOffset(q.datetime())))
+                .transform(Deadline.at(deadline))
+                .timeout(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())),
+                        Mono.error(() -> budgetExceeded("trip search")))
+                .map(plan -> new BatchEntry(q.origin(), q.destination(), q.datetime(), plan, null))
+                .onErrorResume(e -> Mono.just(batchError(q, message(e))));
+    }
+
+    private static BatchEntry batchError(JourneyQuery q, String error) {
+        return q == null
+                ? new BatchEntry(null, null, null, null, error)
+                : new BatchEntry(q.origin(), q.destination(), q.datetime(), null, error);
+    }
+
+    private static String message(Throwable e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /** StopPlace id or error message for one station name of a batch. */
+    private record Resolved(String id, String error) {
+        static Resolved of(String id) {
+            return new Resolved(id, null);
+        }
+
+        static Resolved failed(Throwable e) {
+            return new Resolved(null, message(e));
+        }
+    }
+
+    Mono<String> rawAsync(String origin, String destination, String datetime, Integer maxAlternatives) {
+        return Mono.defer(() -> {
+            var when = (datetime == null || datetime.isBlank())
+                    ? OffsetDateTime.now(ZURICH)
+                    : parseIsoOffset(datetime);
+            int max = maxAlternatives == null || maxAlternatives < 1 ? 6 : maxAlternatives;
+            return withStopPlaces(origin, destination,
+                    (originId, destId) -> journeys.rawTrips(originId, destId, when, max))
+                    .transform(metrics.tool("raw", null));
+        });
     }
 
     // --- helpers -------------------------------------------------------------
 
+    private JourneyListResult listResult(List<FlatPlan> list, String format, String userLanguage) {
+        return "compact".equals(format)
+                ? new JourneyListResult(null, CompactJourneys.of(list), resolveDisclaimer(userLanguage))
+                : new JourneyListResult(list, null, resolveDisclaimer(userLanguage));
+    }
+
+    /** The call's format (checked before the upstream call), else chattender.fahrplan.output.format. */
+    private static String format(String format, String fallback) {
+        if (format == null || format.isBlank()) return fallback;
+        String normalized = format.trim().toLowerCase(Locale.ROOT);
+        return switch (normalized) {
+            case "json", "compact" -> normalized;
+            default -> throw new IllegalArgumentException("Unknown format '" + format + "', expected json or compact");
+        };
+    }
+
+    /**
+     * Resolves origin and destination in parallel and chains the trip search on both ids,
+     * so a tool call costs two sequential upstream round trips instead of three.
+     * <p>
+     * Deadline budget: the whole call gets budget.tool, the station lookup at most its places-share of it;
+     * the trip search gets whatever is left, so a fast (offline/cached) lookup leaves it almost the full budget.
+     * Both deadlines travel in the Reactor context ({@link Deadline}), so the upstream guard sizes each attempt
+     * and its retries to what is left instead of starting a retry that cannot finish.
+     */
+    private <T> Mono<T> withStopPlaces(String origin, String destination,
+                                       BiFunction<String, String, Mono<T>> search) {
+        return Mono.defer(() -> {
+            long deadline = System.nanoTime() + toolBudget.toNanos();
+            return Mono.zip(places.resolveStopPlaceIdAsync(origin), places.resolveStopPlaceIdAsync(destination))
+                    .transform(Deadline.after(placesBudget))
+                    .timeout(placesBudget, Mono.error(() -> budgetExceeded("station lookup")))
+                    .doOnNext(ids -> hotRoutes.record(ids.getT1(), ids.getT2()))
+                    .flatMap(ids -> search.apply(ids.getT1(), ids.getT2())
+                            .transform(Deadline.at(deadline))
+                            .timeout(Duration.ofNanos(Math.max(0, deadline - System.nanoTime())),
+                                    Mono.error(() -> budgetExceeded("trip search"))));
+        });
+    }
+
+    private UpstreamUnavailableException budgetExceeded(String stage) {
+        return new UpstreamUnavailableException("The timetable lookup did not finish within "
+                + toolBudget.toSeconds() + "s (" + stage + "), please try again later.");
+    }
+
     private static OffsetDateTime parseIsoOffset(String datetime) {
         if (datetime == null || datetime.isBlank()) {
           log.info("datetime is null or empty falling back on now");
@@ -369,7 +473,7 @@ public class TimetableTool {
      * - If a BCP-47 tag is given (e.g. "de-CH"), tries the base language ("de").
      * - Falls back to English if nothing matches or language is null/blank.
      */
-    private String resolveDisclaimer(String userLanguage) {
+    String resolveDisclaimer(String userLanguage) {
         if (userLanguage == null || userLanguage.isBlank()) {
             return DISCLAIMER_FALLBACK_EN;
         }
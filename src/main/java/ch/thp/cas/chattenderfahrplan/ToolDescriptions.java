@@ -0,0 +1,175 @@
+package ch.thp.cas.chattenderfahrplan;
+
+/**
+ * Tool- und Parameterbeschreibungen fuer das LLM, geteilt von {@link TimetableTool} (SYNC)
+ * und {@link AsyncTimetableTool} (ASYNC), damit beide Varianten denselben Vertrag haben.
+ */
+final class ToolDescriptions {
+
+    private ToolDescriptions() {
+    }
+
+    static final String DATUM = """
+            Returns today's date in the Europe/Zurich time zone.
+            Use this when you need an explicit date (e.g. to build an ISO-8601 datetime).
+            """;
+
+    static final String NEXT_JOURNEY = """
+            Returns the next connection from now between origin and destination.
+
+            Use this for queries like "next departure", "now", or "soon".
+
+            CONTRACT FOR ARGUMENTS:
+            - The 'origin' and 'destination' arguments MUST be Swiss station names written in Latin letters
+              (e.g. "Bern", "Zuerich HB", "Zuerich Flughafen", "Jungfraujoch").
+            - If the user provides station names in another script (e.g. Chinese, Thai, Arabic),
+              FIRST translate or transliterate them to the official station name in Latin letters
+              before calling this tool.
+
+            IMPORTANT FOR THE ASSISTANT:
+            - Always answer in the same language as the user's last message.
+            - The optional parameter 'userLanguage' should be set to the user's language (ISO 639-1, e.g. "de", "fr", "en").
+            - The tool returns a localized disclaimer; keep it in the answer so the user is reminded to verify on https://www.sbb.ch/.
+            """;
+
+    static final String PLAN_JOURNEY = """
+            Returns a journey for a given departure datetime (ISO 8601 with offset).
+
+            Use this for queries like "today at 14:35", "tomorrow 07:10", or with an explicit date/time.
+
+            CONTRACT FOR ARGUMENTS:
+            - The 'origin' and 'destination' MUST be Swiss station names written in Latin letters
+              (e.g. "Bern", "Zuerich HB", "Zuerich Flughafen", "Jungfraujoch").
+              If the user provides other scripts, first translate or transliterate them to Latin station names.
+            - The 'datetime' argument MUST be an ISO-8601 datetime with offset, e.g. "2025-11-11T14:35:00+01:00".
+            - If the date is missing, you can call the 'datum' tool to obtain today's date.
+            - If the user does not provide a time, ask for a departure time.
+
+            IMPORTANT FOR THE ASSISTANT:
+            - Always answer in the same language as the user's last message.
+            - The optional parameter 'userLanguage' should be set to the user's language (ISO 639-1, e.g. "de", "fr", "en").
+            - The tool returns a localized disclaimer; keep it in the answer so the user is reminded to verify on https://www.sbb.ch/.
+            """;
+
+    static final String LIST_JOURNEYS = """
+            Lists multiple connections from now for today.
+
+            Use this when the user asks for several options or alternative connections.
+
+            CONTRACT FOR ARGUMENTS:
+            - The 'origin' and 'destination' MUST be Swiss station names written in Latin letters
+              (e.g. "Bern", "Zuerich HB", "Zuerich Flughafen", "Jungfraujoch").
+              If the user provides other scripts, first translate or transliterate them to Latin station names.
+
+            Returns a JSON-compatible list of FlatPlan objects plus a disclaimer,
+            or with format "compact" the same connections as a table (see the 'format' parameter).
+
+            IMPORTANT FOR THE ASSISTANT:
+            - Always answer in the same language as the user's last message.
+            - The optional parameter 'userLanguage' should be set to the user's language (ISO 639-1, e.g. "de", "fr", "en").
+            - The tool returns a localized disclaimer; keep it in the answer so the user is reminded to verify on https://www.sbb.ch/.
+            """;
+
+    static final String LIST_AND_PLAN_JOURNEYS = """
+            Lists multiple connections starting from a given departure datetime.
+
+            Use this for queries like "several options around today 16:00".
+
+            CONTRACT FOR ARGUMENTS:
+            - The 'origin' and 'destination' MUST be Swiss station names written in Latin letters
+              (e.g. "Bern", "Zuerich HB", "Zuerich Flughafen", "Jungfraujoch").
+              If the user provides other scripts, first translate or transliterate them to Latin station names.
+            - If the date is unknown, you can call the 'datum' tool to obtain today's date.
+            - The 'datetime' argument MUST be an ISO-8601 datetime with offset, e.g. "2025-11-11T14:35:00+01:00".
+
+            Returns a JSON-compatible list of FlatPlan objects plus a disclaimer,
+            or with format "compact" the same connections as a table (see the 'format' parameter).
+
+            IMPORTANT FOR THE ASSISTANT:
+            - Always answer in the same language as the user's last message.
+            - The optional parameter 'userLanguage' should be set to the user's language (ISO 639-1, e.g. "de", "fr", "en").
+            - The tool returns a localized disclaimer; keep it in the answer so the user is reminded to verify on https://www.sbb.ch/.
+            """;
+
+    static final String PLAN_JOURNEYS_BATCH = """
+            Plans several journeys in one call, e.g. "from Bern to Zuerich HB, Basel SBB and Luzern tomorrow at 08:00".
+
+            Use this instead of several nextJourney/planJourney calls when the user compares routes or destinations.
+
+            CONTRACT FOR ARGUMENTS:
+            - 'queries' is a list of entries with 'origin', 'destination' and an optional 'datetime'.
+            - 'origin' and 'destination' MUST be Swiss station names written in Latin letters
+              (e.g. "Bern", "Zuerich HB", "Zuerich Flughafen", "Jungfraujoch").
+            - 'datetime' MUST be an ISO-8601 datetime with offset, e.g. "2025-11-11T14:35:00+01:00"; if omitted, now is used.
+            - The number of entries per call is limited; a larger batch is rejected and the error states the limit.
+
+            Returns one result per entry in the same order: either 'journey' or 'error' (e.g. unknown station).
+            An error in one entry does not affect the others.
+
+            IMPORTANT FOR THE ASSISTANT:
+            - Always answer in the same language as the user's last message.
+            - The optional parameter 'userLanguage' should be set to the user's language (ISO 639-1, e.g. "de", "fr", "en").
+            - The tool returns a localized disclaimer; keep it in the answer so the user is reminded to verify on https://www.sbb.ch/.
+            """;
+
+    static final String RAW = """
+            Returns the unprocessed JSON response from the journey service as a string.
+
+            Use this when you need exact API fields, trip IDs or debug information.
+
+            CONTRACT FOR ARGUMENTS:
+            - The 'origin' and 'destination' MUST be Swiss station names written in Latin letters
+              (e.g. "Bern", "Zuerich HB", "Zuerich Flughafen", "Jungfraujoch").
+              If the user provides other scripts, first translate or transliterate them to Latin station names.
+
+            The datetime is optional. The response can be large; avoid more than 2 reasoning loops on this.
+
+            NOTE:
+            - This tool does NOT append a disclaimer. The assistant is responsible for adding any safety notes.
+            """;
+
+    // --- parameters ----------------------------------------------------------
+
+    static final String ORIGIN = "Departure location as Swiss station name in Latin letters, e.g. 'Bern', 'Zuerich Flughafen'";
+
+    static final String DESTINATION = "Arrival location as Swiss station name in Latin letters, e.g. 'Zuerich HB', 'Jungfraujoch'";
+
+    static final String DEPARTURE_DATETIME = """
+            Departure datetime in ISO 8601 format with offset, e.g. "2025-11-11T14:35:00+01:00".
+            The datetime MUST include an offset suitable for Europe/Zurich.
+            """;
+
+    static final String START_DATETIME = """
+            Start datetime in ISO 8601 format with offset, e.g. "2025-11-11T14:35:00+01:00".
+            The datetime MUST include an offset suitable for Europe/Zurich.
+            """;
+
+    static final String START_DATETIME_OPTIONAL = """
+            Optional start datetime in ISO 8601 format with offset, e.g. "2025-11-11T14:35:00+01:00".
+            If not provided, 'now' in Europe/Zurich will be used.
+            """;
+
+    static final String JOURNEY_QUERIES = "List of journeys to plan, each with 'origin', 'destination' and optional 'datetime'";
+
+    static final String LIMIT = "Number of requested options, default 6";
+
+    static final String FORMAT = """
+            Optional result format: "json" (list of FlatPlan objects) or "compact".
+            compact: 'columns' names the '|'-separated fields of each entry in 'rows'; fields marked # hold an index
+            into 'names' (0-based). Empty fields are left empty.
+            """;
+
+    static final String MAX_ALTERNATIVES = "Number of alternatives, default 6";
+
+    static final String USER_LANGUAGE = """
+            user language as ISO 639-1 code (e.g. "de", "fr", "it", "en").
+            BCP 47 tags like "de-CH" are also accepted and will be normalized to their base language.
+            If not provided or unknown, the disclaimer will be in English.
+            """;
+
+    static final String USER_LANGUAGE_OPTIONAL = """
+            Optional user language as ISO 639-1 code (e.g. "de", "fr", "it", "en").
+            BCP 47 tags like "de-CH" are also accepted and will be normalized to their base language.
+            If not provided or unknown, the disclaimer will be in English.
+            """;
+}
@@ -0,0 +1,130 @@
+package ch.thp.cas.chattenderfahrplan;
+
+import ch.thp.cas.chattenderfahrplan.TimetableTool.JourneyListResult;
+import ch.thp.cas.chattenderfahrplan.TimetableTool.JourneyResult;
+import ch.thp.cas.chattenderfahrplan.journeyservice.JourneyMapper;
+import ch.thp.cas.chattenderfahrplan.journeyservice.StreamingJourneyMapper;
+import ch.thp.cas.chattenderfahrplan.mapping.CompactJourneys;
+import ch.thp.cas.chattenderfahrplan.mapping.FlatMapper;
+import ch.thp.cas.chattenderfahrplan.mapping.FlatPlan;
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.core.NativeDetector;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * JIT warm-up before readiness ({@code chattender.fahrplan.warmup}), health "warmup" in the readiness group.
+ * <p>
+ * Pushes the bundled /v3/trips fixture through the mapping hot path (streaming and tree mapper, FlatMapper,
+ * compact format), the Jackson serialization of the tool results and the disclaimer lookup, in batches of
+ * {@code batch} rounds, until the JIT has been quiet (less than 1 ms compile time per batch) for {@code quiet-batches}
+ * batches in a row or {@code max-duration} is over. Runs on its own thread, readiness stays OUT_OF_SERVICE until then.
+ * Skipped in a native image (nothing to compile) and when disabled.
+ */
+@Slf4j
+@Component("warmupHealthIndicator")
+class ToolWarmup implements ApplicationRunner, HealthIndicator {
+
+    static final String FIXTURE = "/fixtures/trips-bern-zuerich.json";
+    private static final List<String> LANGUAGES = List.of("de", "fr-CH", "en", "it", "xx");
+
+    private final TimetableTool tools;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration maxDuration;
+    private final int batch;
+    private final int quietBatches;
+
+    private volatile Health state = Health.status(Status.OUT_OF_SERVICE).withDetail("warmup", "pending").build();
+
+    ToolWarmup(TimetableTool timetableTool, ObjectMapper objectMapper,
+               @Value("${chattender.fahrplan.warmup.enabled:true}") boolean enabled,
+               @Value("${chattender.fahrplan.warmup.max-duration:20s}") Duration maxDuration,
+               @Value("${chattender.fahrplan.warmup.batch:50}") int batch,
+               @Value("${chattender.fahrplan.warmup.quiet-batches:3}") int quietBatches) {
+        this.tools = timetableTool;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxDuration = maxDuration;
+        this.batch = Math.max(1, batch);
+        this.quietBatches = Math.max(1, quietBatches);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || NativeDetector.inNativeImage()) {
+            state = Health.up().withDetail("warmup", "skipped").build();
+            return;
+        }
+        Thread.ofPlatform().name("jit-warmup").daemon().start(this::warmUp);
+    }
+
+    @Override
+    public Health health() {
+        return state;
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        int rounds = 0;
+        try {
+            byte[] payload = fixture();
+            CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+            boolean measurable = jit != null && jit.isCompilationTimeMonitoringSupported();
+            long compiled = measurable ? jit.getTotalCompilationTime() : 0;
+            int quiet = 0;
+            while (System.nanoTime() < deadline && quiet < quietBatches) {
+                for (int i = 0; i < batch; i++) {
+                    round(payload, rounds++);
+                }
+                if (!measurable) continue;
+                long now = jit.getTotalCompilationTime();
+                quiet = now - compiled < 1 ? quiet + 1 : 0;
+                compiled = now;
+            }
+            Duration took = Duration.ofNanos(System.nanoTime() - start);
+            log.info("JIT warm-up done after {} rounds in {} ms", rounds, took.toMillis());
+            state = Health.up().withDetail("warmup", "done").withDetail("rounds", rounds)
+                    .withDetail("millis", took.toMillis()).build();
+        } catch (Exception e) {
+            // Warm-up ist Optimierung, kein Grund, die Instanz nie ready zu melden
+            log.warn("JIT warm-up failed after {} rounds: {}", rounds, e.toString());
+            state = Health.up().withDetail("warmup", "failed").build();
+        }
+    }
+
+    private void round(byte[] payload, int round) throws Exception {
+        PlanResult itinerary = StreamingJourneyMapper.toPlanResultItinerary(payload);
+        PlanResult options = StreamingJourneyMapper.toPlanResultOptions(payload, 6);
+        var tree = objectMapper.readTree(payload);
+        JourneyMapper.toPlanResultItinerary(tree);
+        List<FlatPlan> plans = JourneyMapper.toFlatPlans(JourneyMapper.toPlanResultOptions(tree, 6));
+        FlatMapper.toFlat(options);
+
+        String disclaimer = tools.resolveDisclaimer(LANGUAGES.get(round % LANGUAGES.size()));
+        objectMapper.writeValueAsBytes(new JourneyResult(itinerary, disclaimer));
+        objectMapper.writeValueAsBytes(new JourneyListResult(plans, null, disclaimer));
+        objectMapper.writeValueAsBytes(new JourneyListResult(null, CompactJourneys.of(plans), disclaimer));
+    }
+
+    private static byte[] fixture() throws Exception {
+        try (InputStream in = ToolWarmup.class.getResourceAsStream(FIXTURE)) {
+            if (in == null) throw new IllegalStateException("Missing warm-up fixture " + FIXTURE);
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ch.thp.cas.chattenderfahrplan.infrastructure;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Meter fuer Tool-Aufrufe, Upstream-Calls und Payload-Groessen. Alle Timer publizieren Histogramme,
+ * p50/p99 werden in Prometheus per histogram_quantile berechnet (pro Tool bzw. pro Endpoint).
+ * <ul>
+ *   <li>{@code chattender.tool.calls} (tool, outcome) – ganzer Tool-Aufruf inkl. Namensaufloesung</li>
+ *   <li>{@code chattender.tool.inflight} – laufende Tool-Aufrufe (alle Tools)</li>
+ *   <li>{@code chattender.tool.options} (tool) – Anzahl gemappter Verbindungen pro Antwort</li>
+ *   <li>{@code chattender.upstream.calls} (endpoint, status) – places, trips und token (OAuth), nur echte Calls,
+ *       Cache-Treffer und geteilte In-Flight-Calls zaehlen nicht</li>
+ *   <li>{@code chattender.upstream.payload} (endpoint) – Antwortgroesse in Bytes</li>
+ * </ul>
+ */
+@Component
+public class JourneyMetrics {
+
+    public static final String TRIPS = "trips";
+    public static final String PLACES = "places";
+    public static final String TOKEN = "token";
+
+    private final MeterRegistry registry;
+    private final AtomicInteger toolsInFlight = new AtomicInteger();
+
+    public JourneyMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        registry.gauge("chattender.tool.inflight", toolsInFlight);
+    }
+
+    /** Zeitmessung eines Tool-Aufrufs; optionCount (nullable) liefert die Anzahl Verbindungen im Resultat. */
+    public <T> Function<Mono<T>, Mono<T>> tool(String tool, ToIntFunction<T> optionCount) {
+        return call -> Mono.defer(() -> {
+            toolsInFlight.incrementAndGet();
+            Timer.Sample sample = Timer.start(registry);
+            return call
+                    .doFinally(signal -> toolsInFlight.decrementAndGet())
+                    .doOnSuccess(result -> {
+                        sample.stop(toolTimer(tool, "success"));
+                        if (result != null && optionCount != null) {
+                            options(tool).record(optionCount.applyAsInt(result));
+                        }
+                    })
+                    .doOnError(e -> sample.stop(toolTimer(tool, "error")))
+                    .doOnCancel(() -> sample.stop(toolTimer(tool, "cancelled")));
+        });
+    }
+
+    /** Zeitmessung eines Upstream-Calls, getaggt mit Endpoint und HTTP-Status (bzw. IO_ERROR). */
+    public <T> Function<Mono<T>, Mono<T>> upstream(String endpoint) {
+        return call -> Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return call
+                    .doOnSuccess(result -> sample.stop(upstreamTimer(endpoint, "200")))
+                    .doOnError(e -> sample.stop(upstreamTimer(endpoint, status(e))))
+                    .doOnCancel(() -> sample.stop(upstreamTimer(endpoint, "CANCELLED")));
+        });
+    }
+
+    public void payloadBytes(String endpoint, int bytes) {
+        DistributionSummary.builder("chattender.upstream.payload")
+                .description("journey-service response size")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(bytes);
+    }
+
+    private DistributionSummary options(String tool) {
+        return DistributionSummary.builder("chattender.tool.options")
+                .description("connections per tool result")
+                .tag("tool", tool)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Timer toolTimer(String tool, String outcome) {
+        return Timer.builder("chattender.tool.calls")
+                .description("MCP tool call latency")
+                .tags("tool", tool, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Timer upstreamTimer(String endpoint, String status) {
+        return Timer.builder("chattender.upstream.calls")
+                .description("journey-service and OAuth token call latency")
+                .tags("endpoint", endpoint, "status", status)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static String status(Throwable e) {
+        if (e instanceof WebClientResponseException w) return String.valueOf(w.getStatusCode().value());
+        // z.B. "No StopPlace for" nach einem 200er
+        if (e instanceof IllegalArgumentException) return "200";
+        if (e instanceof OAuth2AuthorizationException) return "OAUTH_ERROR";
+        return "IO_ERROR";
+    }
+}
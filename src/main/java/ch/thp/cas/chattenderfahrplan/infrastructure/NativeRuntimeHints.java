@@ -0,0 +1,54 @@
+package ch.thp.cas.chattenderfahrplan.infrastructure;
+
+import ch.thp.cas.chattenderfahrplan.AsyncTimetableTool;
+import ch.thp.cas.chattenderfahrplan.TimetableTool;
+import ch.thp.cas.chattenderfahrplan.mapping.CompactJourneys;
+import ch.thp.cas.chattenderfahrplan.mapping.FlatPlan;
+import ch.thp.cas.chattenderfahrplan.mapping.FlatTrip;
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.util.stream.Stream;
+
+/**
+ * Reflection and resource hints for the native image ({@code mvn -Pnative native:compile}).
+ * <p>
+ * Spring AOT covers the beans; what it cannot see: the {@code @Tool}/{@code @McpTool} methods (invoked
+ * reflectively, their parameter and result types feed the JSON schemas), the records Jackson writes as tool
+ * results or reads as journey-service responses, and the classpath resources loaded by name.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    /** package-private DTOs, per Name */
+    private static final String[] JOURNEY_SERVICE_DTOS = {
+            "ch.thp.cas.chattenderfahrplan.journeyservice.PlacesResolver$PlaceResponse",
+            "ch.thp.cas.chattenderfahrplan.journeyservice.PlacesResolver$Place",
+            "ch.thp.cas.chattenderfahrplan.journeyservice.JourneyService$TripsRequest",
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> tool : new Class<?>[]{TimetableTool.class, AsyncTimetableTool.class}) {
+            hints.reflection().registerType(tool, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        // rekursiv inkl. verschachtelter Records (TripOption, BatchEntry, ...)
+        var bindings = new BindingReflectionHintsRegistrar();
+        bindings.registerReflectionHints(hints.reflection(),
+                PlanResult.class, FlatPlan.class, FlatTrip.class, CompactJourneys.class,
+                TimetableTool.JourneyResult.class, TimetableTool.JourneyListResult.class,
+                TimetableTool.BatchResult.class, TimetableTool.JourneyQuery.class);
+
+        Stream.of(JOURNEY_SERVICE_DTOS).map(TypeReference::of).forEach(type -> hints.reflection().registerType(type,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS,
+                MemberCategory.DECLARED_FIELDS));
+
+        hints.resources()
+                .registerPattern("disclaimer.properties")
+                .registerPattern("stations/*");
+    }
+}
@@ -0,0 +1,54 @@
+package ch.thp.cas.chattenderfahrplan.infrastructure;
+
+import org.apache.commons.logging.Log;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.boot.logging.DeferredLogFactory;
+import org.springframework.core.env.ConfigurableEnvironment;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Locale;
+
+/**
+ * Ausfuehrungsmodus der blockierenden SYNC-Tools ({@code chattender.fahrplan.tool-execution.mode}).
+ * <p>
+ * Der SYNC MCP-Server ruft jedes Tool auf {@code Schedulers.boundedElastic()} auf; dort blockiert der Aufruf
+ * waehrend der ganzen Upstream-Latenz. Mit {@code platform} ist das ein Pool von 10 Threads pro CPU, bei
+ * {@code --cpu=1} warten die restlichen der 80 Cloud-Run-Requests in der Queue. Mit {@code virtual} (Default)
+ * laeuft boundedElastic auf Reactors eigener Variante mit virtuellen Threads
+ * ({@code reactor.schedulers.defaultBoundedElasticOnVirtualThreads}); Thread- und Queue-Cap bleiben, der
+ * Thread-Cap ist {@code max-threads}. Die System-Properties wirken nur, bevor {@link Schedulers} geladen ist,
+ * deshalb als EnvironmentPostProcessor (META-INF/spring.factories).
+ */
+public class ToolExecutionEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String MODE = "chattender.fahrplan.tool-execution.mode";
+    static final String MAX_THREADS = "chattender.fahrplan.tool-execution.max-threads";
+    static final String DEFAULT_MODE = "virtual";
+
+    private final Log log;
+
+    public ToolExecutionEnvironmentPostProcessor(DeferredLogFactory logFactory) {
+        this.log = logFactory.getLog(ToolExecutionEnvironmentPostProcessor.class);
+    }
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String mode = environment.getProperty(MODE, DEFAULT_MODE);
+        switch (mode.toLowerCase(Locale.ROOT)) {
+            case "virtual" -> {
+                int maxThreads = environment.getProperty(MAX_THREADS, Integer.class, 100);
+                System.setProperty("reactor.schedulers.defaultBoundedElasticOnVirtualThreads", "true");
+                System.setProperty("reactor.schedulers.defaultBoundedElasticSize", String.valueOf(maxThreads));
+                if (Schedulers.DEFAULT_BOUNDED_ELASTIC_ON_VIRTUAL_THREADS) {
+                    log.info("Tool execution on virtual threads (boundedElastic, at most " + maxThreads + ")");
+                } else {
+                    log.warn("Reactor Schedulers were initialized before " + MODE
+                            + " was applied, boundedElastic stays on platform threads");
+                }
+            }
+            case "platform" -> { /* Reactor-Default */ }
+            default -> throw new IllegalStateException(MODE + " must be 'platform' or 'virtual', got: " + mode);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package ch.thp.cas.chattenderfahrplan.infrastructure;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Zaehlt, wie oft ein virtueller Thread seinen Carrier blockiert (JFR-Event jdk.VirtualThreadPinned,
+ * z.B. blockierendes I/O in einem synchronized-Block). Steigt {@code chattender.virtualthreads.pinned},
+ * wird der Carrier-Pool (= CPUs) zum Flaschenhals und {@code virtual} bringt nichts mehr.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = ToolExecutionEnvironmentPostProcessor.MODE, havingValue = "virtual", matchIfMissing = true)
+public class VirtualThreadPinningMonitor implements InitializingBean, DisposableBean {
+
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+
+    private final Counter pinned;
+    private final Timer pinnedDuration;
+    private final Duration threshold;
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry registry,
+                                       @Value("${chattender.fahrplan.tool-execution.pinned-threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+        this.pinned = Counter.builder("chattender.virtualthreads.pinned")
+                .description("virtual threads that blocked while pinned to their carrier")
+                .register(registry);
+        this.pinnedDuration = Timer.builder("chattender.virtualthreads.pinned.duration")
+                .description("time a carrier thread was pinned")
+                .register(registry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        stream = new RecordingStream();
+        stream.enable(PINNED).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED, event -> {
+            pinned.increment();
+            pinnedDuration.record(event.getDuration());
+            if (log.isDebugEnabled()) {
+                log.debug("virtual thread pinned for {}: {}", event.getDuration(), event.getStackTrace());
+            }
+        });
+        stream.startAsync();
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) stream.close();
+    }
+}
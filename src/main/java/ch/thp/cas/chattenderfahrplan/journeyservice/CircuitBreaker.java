@@ -0,0 +1,119 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Count-based circuit breaker for one upstream endpoint.
+ * <p>
+ * CLOSED: the last {@code window} outcomes are tracked; with at least {@code minCalls} outcomes and a failure rate
+ * of {@code failureRate} or more it opens. OPEN: calls are rejected for {@code openFor}. HALF_OPEN: up to
+ * {@code halfOpenCalls} trial calls, all must succeed to close again, one failure opens it again.
+ * Outcomes that say nothing about the upstream health (4xx, unknown station) are {@link #onIgnored() ignored}.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int window;
+    private final int minCalls;
+    private final double failureRate;
+    private final Duration openFor;
+    private final int halfOpenCalls;
+    private final Clock clock;
+
+    private final boolean[] failed;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private Instant openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    CircuitBreaker(int window, int minCalls, double failureRate, Duration openFor, int halfOpenCalls, Clock clock) {
+        if (window < 1 || minCalls < 1 || halfOpenCalls < 1) {
+            throw new IllegalArgumentException("window, min-calls and half-open-calls must be positive");
+        }
+        this.window = window;
+        this.minCalls = Math.min(minCalls, window);
+        this.failureRate = failureRate;
+        this.openFor = openFor;
+        this.halfOpenCalls = halfOpenCalls;
+        this.clock = clock;
+        this.failed = new boolean[window];
+    }
+
+    /** @return true, wenn der Call durchgefuehrt werden darf; dann muss genau ein on*-Callback folgen */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.instant().isBefore(openedAt.plus(openFor))) return false;
+            state = State.HALF_OPEN;
+            halfOpenPermits = 0;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) return false;
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) close();
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= minCalls && failures >= failureRate * recorded) open();
+    }
+
+    /** Outcome ohne Aussage ueber die Upstream-Gesundheit: gibt nur eine Half-Open-Permit zurueck. */
+    synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) halfOpenPermits--;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    /** Verbleibende Zeit bis zum naechsten Versuch, ZERO wenn nicht offen. */
+    synchronized Duration retryIn() {
+        if (state != State.OPEN) return Duration.ZERO;
+        Duration left = Duration.between(clock.instant(), openedAt.plus(openFor));
+        return left.isNegative() ? Duration.ZERO : left;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window) {
+            if (failed[next]) failures--;
+        } else {
+            recorded++;
+        }
+        failed[next] = failure;
+        if (failure) failures++;
+        next = (next + 1) % window;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.instant();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        recorded = 0;
+        failures = 0;
+        next = 0;
+    }
+}
@@ -0,0 +1,84 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+/**
+ * Adaptive in-flight limit for one upstream endpoint, gradient-based (like Gradient2 of Netflix concurrency-limits).
+ * <p>
+ * Every successful call is an RTT sample. The long-term RTT is a moving average over {@code window} samples; a
+ * sample above {@code tolerance} times that average pulls the limit down (gradient long/short, at most halving),
+ * otherwise the limit grows by about sqrt(limit) as allowed queue. The new limit is blended in with
+ * {@code smoothing} and kept within {@code min}/{@code max}. Overload signals (timeout, 429, 503) cut the limit by
+ * {@code backoff}. While less than half the limit is in use nothing is learned: low load says nothing about capacity.
+ */
+final class ConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final int window;
+    private final double backoff;
+
+    private double limit;
+    private double longRtt;
+    private int inFlight;
+
+    ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing, int window,
+                       double backoff) {
+        if (minLimit < 1 || maxLimit < minLimit || tolerance < 1.0 || smoothing <= 0 || smoothing > 1
+                || window < 1 || backoff <= 0 || backoff >= 1) {
+            throw new IllegalArgumentException("limit: 1 <= min <= max, tolerance >= 1, 0 < smoothing <= 1, "
+                    + "window >= 1, 0 < backoff < 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.window = window;
+        this.backoff = backoff;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /** @return true, wenn der Call laufen darf; dann muss genau ein on*-Callback folgen */
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) return false;
+        inFlight++;
+        return true;
+    }
+
+    synchronized void onSuccess(long rttNanos) {
+        int active = inFlight--;
+        if (rttNanos <= 0) return;
+        double rtt = rttNanos;
+        longRtt = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) / window;
+        // Latenz deutlich gesunken (z.B. nach einer Stoerung): Basis schneller nachziehen
+        if (longRtt / rtt > 2) longRtt *= 0.95;
+        if (active < limit / 2) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / rtt));
+        double next = limit * gradient + Math.sqrt(limit);
+        update(limit * (1 - smoothing) + next * smoothing);
+    }
+
+    /** Timeout, 429 oder 503: der Upstream ist ueberlastet. */
+    synchronized void onDropped() {
+        inFlight--;
+        update(limit * backoff);
+    }
+
+    /** Ausgang sagt nichts ueber die Kapazitaet (4xx, Abbruch, Breaker offen). */
+    synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private void update(double next) {
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
@@ -0,0 +1,38 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Deadline eines Tool-Aufrufs im Reactor-Context ({@link System#nanoTime()}-Basis).
+ * <p>
+ * {@link UpstreamGuard} richtet Attempt-Timeouts und Retries daran aus: jeder Versuch bekommt hoechstens seinen
+ * Anteil an der Restzeit, ein Retry ohne Restzeit wird nicht mehr gestartet. Gesetzt von den Tools; die
+ * naeher an der Quelle gesetzte (kuerzere) Deadline, z.B. die der Stationssuche, gilt fuer ihre Calls.
+ */
+public final class Deadline {
+
+    private static final Object KEY = Deadline.class;
+
+    private Deadline() {}
+
+    /** Deadline zum Zeitpunkt deadlineNanos fuer alle Upstream-Calls des Monos. */
+    public static <T> Function<Mono<T>, Mono<T>> at(long deadlineNanos) {
+        return mono -> mono.contextWrite(ctx -> ctx.put(KEY, deadlineNanos));
+    }
+
+    /** Deadline budget nach dem Subscribe. */
+    public static <T> Function<Mono<T>, Mono<T>> after(Duration budget) {
+        return mono -> mono.contextWrite(ctx -> ctx.put(KEY, System.nanoTime() + budget.toNanos()));
+    }
+
+    /** @return Restzeit in Nanos, {@link Long#MAX_VALUE} ohne Deadline */
+    static long remainingNanos(ContextView ctx) {
+        return ctx.<Long>getOrEmpty(KEY)
+                .map(deadline -> deadline - System.nanoTime())
+                .orElse(Long.MAX_VALUE);
+    }
+}
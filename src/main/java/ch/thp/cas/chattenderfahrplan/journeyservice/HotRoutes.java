@@ -0,0 +1,65 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Route popularity from the trip searches the tools run, input for the {@link RoutePrefetcher}.
+ * <p>
+ * Counts go into a {@link RouteSketch}; the routes with the highest estimates are kept as top-K candidates
+ * ({@code chattender.fahrplan.prefetch.track} of them), so the memory stays bounded however many distinct
+ * routes are asked for. {@link #decay()} halves all counts.
+ */
+@Component
+public class HotRoutes {
+
+    record Route(String origin, String destination) {}
+
+    private final RouteSketch sketch = new RouteSketch(4, 2048);
+    private final Map<Route, Long> candidates = new ConcurrentHashMap<>();
+    private final int track;
+
+    HotRoutes(@Value("${chattender.fahrplan.prefetch.track:64}") int track) {
+        this.track = Math.max(1, track);
+    }
+
+    /** Eine Suche origin -> destination (StopPlace ids). */
+    public void record(String originId, String destinationId) {
+        if (originId == null || destinationId == null) return;
+        Route route = new Route(originId, destinationId);
+        candidates.put(route, sketch.increment(route));
+        // amortisiert: erst bei doppelter Groesse auf track kuerzen
+        if (candidates.size() > 2 * track) trim();
+    }
+
+    /** Bis zu n Routen mit mindestens minCount, die haeufigste zuerst. */
+    List<Route> top(int n, long minCount) {
+        return candidates.entrySet().stream()
+                .filter(e -> e.getValue() >= minCount)
+                .sorted(Map.Entry.<Route, Long>comparingByValue().reversed())
+                .limit(n)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    void decay() {
+        sketch.halve();
+        candidates.replaceAll((route, count) -> sketch.estimate(route));
+        candidates.values().removeIf(count -> count == 0);
+    }
+
+    private synchronized void trim() {
+        if (candidates.size() <= 2 * track) return;
+        candidates.entrySet().stream()
+                .sorted(Comparator.comparingLong(Map.Entry::getValue))
+                .limit(candidates.size() - track)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(candidates::remove);
+    }
+}
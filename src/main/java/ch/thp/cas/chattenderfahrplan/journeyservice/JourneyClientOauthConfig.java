@@ -1,52 +1,49 @@
 package ch.thp.cas.chattenderfahrplan.journeyservice;
 
+import ch.thp.cas.chattenderfahrplan.infrastructure.JourneyMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.MediaType;
-import org.springframework.security.oauth2.client.*;
-import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
-import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.security.oauth2.client.endpoint.OAuth2ClientCredentialsGrantRequest;
+import org.springframework.security.oauth2.client.endpoint.ReactiveOAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.WebClientReactiveClientCredentialsTokenResponseClient;
 import org.springframework.util.unit.DataSize;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
 import java.util.List;
 
 
 @Configuration
 class JourneyClientOAuthConfig {
 
+    /** Token-Bezug mit eigenem Timer (chattender.upstream.calls, endpoint=token), verwendet vom {@link JourneyTokenManager}. */
     @Bean
-    ReactiveOAuth2AuthorizedClientManager authorizedClientManager(
-            ReactiveClientRegistrationRepository registrations,
-            ReactiveOAuth2AuthorizedClientService clientService) {
-
-        var provider = ReactiveOAuth2AuthorizedClientProviderBuilder.builder()
-                .clientCredentials()   // wichtig
-                .build();
-
-        var manager = new AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager(
-                registrations, clientService);
-        manager.setAuthorizedClientProvider(provider);
-        return manager;
+    ReactiveOAuth2AccessTokenResponseClient<OAuth2ClientCredentialsGrantRequest> journeyTokenResponseClient(JourneyMetrics metrics) {
+        var tokenClient = new WebClientReactiveClientCredentialsTokenResponseClient();
+        return request -> tokenClient.getTokenResponse(request).transform(metrics.upstream(JourneyMetrics.TOKEN));
     }
 
     @Bean
     WebClient journeyWebClient(
-            ReactiveOAuth2AuthorizedClientManager authorizedClientManager,
-            @Value("${JOURNEY_SERVICE_BASE}") String baseUrl) {
+            JourneyTokenManager journeyTokenManager,
+            HttpClient journeyHttpClient,
+            @Value("${JOURNEY_SERVICE_BASE}") String baseUrl,
+            @Value("${chattender.fahrplan.http.max-in-memory-size:5MB}") DataSize maxInMemorySize) {
 
-        var oauth = new ServerOAuth2AuthorizedClientExchangeFilterFunction(authorizedClientManager);
-        oauth.setDefaultClientRegistrationId("journey");
-        // journey-service returns sometimes large payloads
-        final int size = (int) DataSize.ofMegabytes(5).toBytes();
+        // journey-service returns sometimes large payloads; PayloadBudget reserves against the same limit
+        final int size = (int) maxInMemorySize.toBytes();
         final ExchangeStrategies strategies = ExchangeStrategies.builder()
                 .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(size))
                 .build();
         return WebClient.builder()
                 .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(journeyHttpClient))   // Pool, HTTP/2, gzip
                 .exchangeStrategies(strategies)
-                .filter(oauth)                              // fügt automatisch Bearer-Token ein
+                .filter(journeyTokenManager.bearerFilter())  // fügt das gehaltene Bearer-Token ein
                 .defaultHeaders(h -> h.setAccept(List.of(MediaType.APPLICATION_JSON)))
                 .build();
     }
@@ -0,0 +1,83 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Reactor Netty client for the journey-service, configured under {@code chattender.fahrplan.http}.
+ * <p>
+ * Named pool "journey-service" with idle/lifetime eviction below the idle timeouts of the load balancers in between,
+ * so a pooled connection is never handed out after it was silently reaped. HTTP/2 via ALPN where the upstream
+ * supports it (falls back to HTTP/1.1, plain http always uses HTTP/1.1), gzip for the multi-MB trips payloads.
+ * Pool gauges go to Micrometer as {@code reactor.netty.connection.provider.*}.
+ */
+@Slf4j
+@Configuration
+class JourneyHttpClientConfig {
+
+    static final String POOL_NAME = "journey-service";
+
+    @Bean(destroyMethod = "dispose")
+    ConnectionProvider journeyConnectionProvider(
+            @Value("${chattender.fahrplan.http.max-connections:50}") int maxConnections,
+            @Value("${chattender.fahrplan.http.pending-acquire-max-count:200}") int pendingAcquireMaxCount,
+            @Value("${chattender.fahrplan.http.pending-acquire-timeout:5s}") Duration pendingAcquireTimeout,
+            @Value("${chattender.fahrplan.http.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${chattender.fahrplan.http.max-life-time:5m}") Duration maxLifeTime) {
+        return ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(maxIdleTime)
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    HttpClient journeyHttpClient(
+            ConnectionProvider journeyConnectionProvider,
+            @Value("${chattender.fahrplan.http.http2:true}") boolean http2,
+            @Value("${chattender.fahrplan.http.compress:true}") boolean compress) {
+        var client = HttpClient.create(journeyConnectionProvider)
+                .compress(compress);   // Accept-Encoding: gzip, transparent entpackt
+        return http2 ? client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11) : client;
+    }
+
+    /**
+     * Warm-up beim Start: Event-Loops, DNS und TLS-Handshake vor dem ersten Tool-Aufruf. Die Requests gehen ohne
+     * Token an die Basis-URL, der Status ist egal - es geht nur um die Verbindungen im Pool. Laeuft asynchron,
+     * ein nicht erreichbarer journey-service verzoegert den Start nicht.
+     */
+    @Bean
+    ApplicationRunner journeyConnectionWarmup(
+            HttpClient journeyHttpClient,
+            @Value("${JOURNEY_SERVICE_BASE}") String baseUrl,
+            @Value("${chattender.fahrplan.http.warm-up-connections:2}") int connections,
+            @Value("${chattender.fahrplan.http.warm-up-timeout:5s}") Duration timeout) {
+        return args -> {
+            if (connections < 1) return;
+            journeyHttpClient.warmup()
+                    .thenMany(Flux.range(0, connections)
+                            .flatMap(i -> journeyHttpClient.head().uri(baseUrl).response()
+                                    .timeout(timeout)
+                                    .onErrorResume(e -> {
+                                        log.info("journey-service warm-up failed: {}", e.toString());
+                                        return Mono.empty();
+                                    })))
+                    .count()
+                    .subscribe(n -> log.info("journey-service warm-up: {} connection(s) opened", n));
+        };
+    }
+}
@@ -18,58 +18,59 @@ public final class JourneyMapper {
     public static PlanResult toPlanResultItinerary(JsonNode root) {
         if (root == null) return PlanResult.of(List.of());
         for (JsonNode trip : root.path("trips")) {
-            List<PlanResult.TripOption> legs = new ArrayList<>();
-            JsonNode arr = trip.path("legs");
-            if (!arr.isArray()) continue;
-            for (JsonNode leg : arr) {
-                if (!"PTRideLeg".equalsIgnoreCase(leg.path("type").asText())) continue;
-                JsonNode sj = leg.path("serviceJourney");
-                JsonNode stopPoints = sj.path("stopPoints");
-                JsonNode prod = (sj.path("serviceProducts").isArray() && sj.path("serviceProducts").size()>0)
-                        ? sj.path("serviceProducts").get(0) : null;
-                StopPair pair = resolveDepArrStopPoints(stopPoints, prod);
-                if (pair.depSp == null || pair.arrSp == null) continue;
-
-                String dep = pickTime(pair.depSp.path("departure"));
-                String arrT = pickTime(pair.arrSp.path("arrival"));
-                String fq = pickQuay(pair.depSp.path("departure"));
-                String tq = pickQuay(pair.arrSp.path("arrival"));
-                String fromName = textOrNull(pair.depSp.path("place").path("name"));
-                String toName   = textOrNull(pair.arrSp.path("place").path("name"));
-
-                String service = null;
-                if (prod != null) {
-                    service = textOrNull(prod.path("nameFormatted"));
-                    if (service == null) {
-                        String name = textOrNull(prod.path("name"));
-                        if (name != null) {
-                            var t = name.split("\\s+");
-                            service = (t.length>=2) ? (t[0] + " " + t[1]).trim() : name.trim();
-                        }
-                    }
-                    if (service == null) {
-                        String sub = textOrNull(prod.path("vehicleMode").path("vehicleSubModeShortName"));
-                        String line = textOrNull(prod.path("line"));
-                        if (sub != null && line != null) service = (sub + " " + line).trim();
-                    }
-                }
-                String operator = prod != null ? textOrNull(prod.path("operator").path("name")) : null;
-
-                String direction = null;
-                if (sj.path("directions").isArray() && sj.path("directions").size()>0)
-                    direction = textOrNull(sj.path("directions").get(0).path("name"));
-                else if (leg.path("directions").isArray() && leg.path("directions").size()>0)
-                    direction = textOrNull(leg.path("directions").get(0).path("name"));
-
-                legs.add(new PlanResult.TripOption(
-                        dep, arrT, service, operator, fq, tq, direction, fromName, toName
-                ));
-            }
+            List<PlanResult.TripOption> legs = itineraryLegs(trip);
             if (!legs.isEmpty()) return PlanResult.of(legs); // nur erste Verbindung
         }
         return PlanResult.of(List.of());
     }
 
+    /** Itinerary jedes Trips (Trips ohne Fahrt-Leg fallen weg), wie {@link StreamingJourneyMapper#toTrips}. */
+    static List<PlanResult> toItineraries(JsonNode root) {
+        if (root == null) return List.of();
+        List<PlanResult> itineraries = new ArrayList<>();
+        for (JsonNode trip : root.path("trips")) {
+            List<PlanResult.TripOption> legs = itineraryLegs(trip);
+            if (!legs.isEmpty()) itineraries.add(PlanResult.of(legs));
+        }
+        return itineraries;
+    }
+
+    private static List<PlanResult.TripOption> itineraryLegs(JsonNode trip) {
+        List<PlanResult.TripOption> legs = new ArrayList<>();
+        JsonNode arr = trip.path("legs");
+        if (!arr.isArray()) return legs;
+        for (JsonNode leg : arr) {
+            if (!"PTRideLeg".equalsIgnoreCase(leg.path("type").asText())) continue;
+            JsonNode sj = leg.path("serviceJourney");
+            JsonNode stopPoints = sj.path("stopPoints");
+            JsonNode prod = (sj.path("serviceProducts").isArray() && sj.path("serviceProducts").size()>0)
+                    ? sj.path("serviceProducts").get(0) : null;
+            StopPair pair = resolveDepArrStopPoints(stopPoints, prod);
+            if (pair.depSp == null || pair.arrSp == null) continue;
+
+            String dep = pickTime(pair.depSp.path("departure"));
+            String arrT = pickTime(pair.arrSp.path("arrival"));
+            String fq = pickQuay(pair.depSp.path("departure"));
+            String tq = pickQuay(pair.arrSp.path("arrival"));
+            String fromName = textOrNull(pair.depSp.path("place").path("name"));
+            String toName   = textOrNull(pair.arrSp.path("place").path("name"));
+
+            String service = prod != null ? serviceLabel(prod) : null;
+            String operator = prod != null ? textOrNull(prod.path("operator").path("name")) : null;
+
+            String direction = null;
+            if (sj.path("directions").isArray() && sj.path("directions").size()>0)
+                direction = textOrNull(sj.path("directions").get(0).path("name"));
+            else if (leg.path("directions").isArray() && leg.path("directions").size()>0)
+                direction = textOrNull(leg.path("directions").get(0).path("name"));
+
+            legs.add(new PlanResult.TripOption(
+                    dep, arrT, service, operator, fq, tq, direction, fromName, toName
+            ));
+        }
+        return legs;
+    }
+
     // 2) Optionen: mehrere Verbindungen kompakt (bestehende Logik)
     public static PlanResult toPlanResultOptions(JsonNode root, int maxOptions) {
         if (root == null) return PlanResult.of(List.of());
@@ -108,22 +109,7 @@ public final class JourneyMapper {
             String fromName = textOrNull(depPair.depSp.path("place").path("name"));
             String toName   = textOrNull(arrPair.arrSp.path("place").path("name"));
 
-            String service = null;
-            if (prodFirst != null) {
-                service = textOrNull(prodFirst.path("nameFormatted"));
-                if (service == null) {
-                    String name = textOrNull(prodFirst.path("name"));
-                    if (name != null) {
-                        var t = name.split("\\s+");
-                        service = (t.length>=2) ? (t[0] + " " + t[1]).trim() : name.trim();
-                    }
-                }
-                if (service == null) {
-                    String sub = textOrNull(prodFirst.path("vehicleMode").path("vehicleSubModeShortName"));
-                    String line = textOrNull(prodFirst.path("line"));
-                    if (sub != null && line != null) service = (sub + " " + line).trim();
-                }
-            }
+            String service = prodFirst != null ? serviceLabel(prodFirst) : null;
             String operator = prodFirst != null ? textOrNull(prodFirst.path("operator").path("name")) : null;
 
             String direction = null;
@@ -143,7 +129,11 @@ public final class JourneyMapper {
 
     // 3) Neu: Liste flacher Pläne (für listJourneys/listAndPlanJourneys)
     public static List<FlatPlan> toFlatPlans(JsonNode root, int maxOptions) {
-        PlanResult pr = toPlanResultOptions(root, Math.max(1, maxOptions));
+        return toFlatPlans(toPlanResultOptions(root, Math.max(1, maxOptions)));
+    }
+
+    /** Optionen (aus toPlanResultOptions, egal welcher Parser) als Liste flacher Pläne. */
+    public static List<FlatPlan> toFlatPlans(PlanResult pr) {
         List<FlatPlan> out = new ArrayList<>();
         for (PlanResult.TripOption opt : pr.options()) {
             // jeweils ein Einzel-PlanResult aus der Option bauen und dann flatten
@@ -272,15 +262,41 @@ public final class JourneyMapper {
 
     private static String pickQuay(JsonNode when) {
         if (when == null || when.isMissingNode() || when.isNull()) return null;
-        String fmt = textOrNull(when.path("quayFormatted"));
-        if (isValidQuay(fmt)) return fmt;
-        String rt = textOrNull(when.path("quayRt").path("name"));
+        return quay(textOrNull(when.path("quayFormatted")),
+                textOrNull(when.path("quayRt").path("name")),
+                textOrNull(when.path("quayAimed").path("name")));
+    }
+
+    private static String serviceLabel(JsonNode prod) {
+        return serviceLabel(textOrNull(prod.path("nameFormatted")),
+                textOrNull(prod.path("name")),
+                textOrNull(prod.path("vehicleMode").path("vehicleSubModeShortName")),
+                textOrNull(prod.path("line")));
+    }
+
+    // ---------- Regeln, die auch der StreamingJourneyMapper verwendet ----------
+
+    /** Erstes gueltiges Gleis: formatiert, dann realtime, dann geplant. */
+    static String quay(String formatted, String rt, String aimed) {
+        if (isValidQuay(formatted)) return formatted;
         if (isValidQuay(rt)) return rt;
-        String aimed = textOrNull(when.path("quayAimed").path("name"));
         if (isValidQuay(aimed)) return aimed;
         return null;
     }
 
+    /** "IC 1": nameFormatted, sonst die ersten zwei Tokens von name, sonst Submode + Linie. */
+    static String serviceLabel(String nameFormatted, String name, String subMode, String line) {
+        String service = nameFormatted;
+        if (service == null && name != null) {
+            var t = name.split("\\s+");
+            service = (t.length>=2) ? (t[0] + " " + t[1]).trim() : name.trim();
+        }
+        if (service == null && subMode != null && line != null) {
+            service = (subMode + " " + line).trim();
+        }
+        return service;
+    }
+
     private static boolean isValidQuay(String s) {
         if (s == null) return false;
         String t = s.trim();
@@ -1,18 +1,33 @@
 package ch.thp.cas.chattenderfahrplan.journeyservice;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
 
+import ch.thp.cas.chattenderfahrplan.infrastructure.JourneyMetrics;
 import ch.thp.cas.chattenderfahrplan.mapping.FlatMapper;
 import ch.thp.cas.chattenderfahrplan.mapping.FlatPlan;
 import ch.thp.cas.chattenderfahrplan.mapping.PlanResult;
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Service
@@ -23,9 +38,32 @@ public class JourneyService {
     private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm").withZone(ZURICH);
 
     private final WebClient client;
+    private final TripSearchCache tripCache;
+    private final ObjectMapper objectMapper;
+    private final JourneyMetrics metrics;
+    private final UpstreamGuard guard;
+    private final TripPager pager;
+    private final TripsRequestOptions requestOptions;
+    private final PayloadBudget payloadBudget;
+    private final RecentJourneyLists recentLists;
+    private final SingleFlight<TripsRequest, byte[]> tripSearches = new SingleFlight<>();
+    private final boolean streamingMapper;
 
-    public JourneyService(WebClient journeyWebClient) {
+    public JourneyService(WebClient journeyWebClient, TripSearchCache tripSearchCache, ObjectMapper objectMapper,
+                          JourneyMetrics journeyMetrics, UpstreamGuard upstreamGuard, TripPager tripPager,
+                          TripsRequestOptions tripsRequestOptions, PayloadBudget payloadBudget,
+                          RecentJourneyLists recentJourneyLists,
+                          @Value("${chattender.fahrplan.mapping.engine:streaming}") String mappingEngine) {
         this.client = journeyWebClient;
+        this.tripCache = tripSearchCache;
+        this.objectMapper = objectMapper;
+        this.metrics = journeyMetrics;
+        this.guard = upstreamGuard;
+        this.pager = tripPager;
+        this.requestOptions = tripsRequestOptions;
+        this.payloadBudget = payloadBudget;
+        this.recentLists = recentJourneyLists;
+        this.streamingMapper = streaming(mappingEngine);
     }
 
     /* =========================
@@ -34,32 +72,70 @@ public class JourneyService {
 
     /** Textuelle Zusammenfassung: naechste passende Verbindung ab Zeitpunkt when. */
     public PlanResult planJourneyText(String originUIC, String destinationUIC, OffsetDateTime when) {
-        JsonNode json = fetchTrips(originUIC, destinationUIC, when).block();
-        // Nimmt die beste/erste Verbindung ab Zeitpunkt when und formatiert als Text
-        return JourneyMapper.toPlanResultItinerary(json);
+        return planItinerary(originUIC, destinationUIC, when).block();
     }
 
     /** JSON-kompatible Liste: mehrere Verbindungen ab Zeitpunkt when (limit steuert Anzahl). */
     public List<FlatPlan> planJourneyJson(String originUIC, String destinationUIC, OffsetDateTime when, int limit) {
-        JsonNode json = fetchTrips(originUIC, destinationUIC, when).block();
-        // Bevorzugt direkte Flat-Listenabbildung (falls vorhanden)
-        // TODO: Falls deine Mapper keine Liste liefern, ersatzweise Options->Flat umsetzen.
-        List<FlatPlan> flats = JourneyMapper.toFlatPlans(json, Math.max(1, limit));
-        return flats;
+        return planFlatPlans(originUIC, destinationUIC, when, limit).block();
     }
 
     /** Rohantwort des Journey-Service als JSON-String (Debug, Trip-IDs, volle Felder). */
     public String rawTripSearch(String originUIC, String destinationUIC, OffsetDateTime when, int maxAlternatives) {
-        TripsRequest req = toTripsRequest(originUIC, destinationUIC, when, false);
-        // maxAlternatives wird aktuell clientseitig geschnitten (Mapper), Backend-Body bleibt minimal wie bisher.
-        return client.post()
-                .uri("/v3/trips/by-origin-destination")
-                .contentType(MediaType.APPLICATION_JSON)
-                .header("Request-ID", UUID.randomUUID().toString())
-                .bodyValue(req)
-                .retrieve()
-                .bodyToMono(String.class)
-                .block();
+        return rawTrips(originUIC, destinationUIC, when, maxAlternatives).block();
+    }
+
+    /* =========================
+       Reactive-API mit Zeitfilter (Basis der Sync-API)
+       ========================= */
+
+    /**
+     * Nimmt die beste/erste Verbindung ab Zeitpunkt when als Itinerary. Liegt when im Fenster einer kurz zuvor
+     * gelisteten Verbindungsliste derselben Strecke, kommt sie aus dieser ({@link RecentJourneyLists}).
+     */
+    public Mono<PlanResult> planItinerary(String originUIC, String destinationUIC, OffsetDateTime when) {
+        return Mono.defer(() -> {
+            PlanResult held = recentLists.itinerary(originUIC, destinationUIC, when);
+            if (held != null) return Mono.just(held);
+            return fetchTripsPayload(toTripsRequest(originUIC, destinationUIC, when, 1, false))
+                    .map(this::itinerary)
+                    .defaultIfEmpty(PlanResult.of(List.of()));
+        });
+    }
+
+    /**
+     * Mehrere Verbindungen ab Zeitpunkt when als Flat-Liste (limit hoechstens paging.max-limit). Zuerst die
+     * normale Einzelsuche; nur was ihr an limit fehlt, wird ueber parallele Zeitfenster nachgeholt
+     * ({@link TripPager}), geliefert werden genau limit Verbindungen in Reihenfolge.
+     */
+    public Mono<List<FlatPlan>> planFlatPlans(String originUIC, String destinationUIC, OffsetDateTime when, int limit) {
+        int max = pager.limit(limit);
+        return Mono.defer(() -> {
+            // Itineraries pro Trip im selben Mapping-Durchgang, fuer RecentJourneyLists
+            List<PlanResult> itineraries = new CopyOnWriteArrayList<>();
+            return fetchTripsPayload(toTripsRequest(originUIC, destinationUIC, when, max, false))
+                    .map(payload -> trips(payload, max, itineraries).options())
+                    .flatMap(first -> when == null || first.isEmpty() || first.size() >= max
+                            ? Mono.just(first)
+                            // Fehlbetrag: Slices mit Backend-Default pro Antwort, darauf ist trips-per-search abgestimmt
+                            : pager.page(when, max, first, start -> fetchTripsPayload(
+                                            toTripsRequest(originUIC, destinationUIC, start, null, false))
+                                    .map(payload -> trips(payload, 0, itineraries))))   // 0 = alle Optionen der Antwort
+                    .map(options -> {
+                        List<FlatPlan> plans = JourneyMapper.toFlatPlans(PlanResult.of(options));
+                        recentLists.hold(originUIC, destinationUIC, when, plans, itineraries);
+                        return plans;
+                    })
+                    .defaultIfEmpty(List.of());
+        });
+    }
+
+    /** Rohantwort ab Zeitpunkt when. */
+    public Mono<String> rawTrips(String originUIC, String destinationUIC, OffsetDateTime when, int maxAlternatives) {
+        // maxAlternatives geht als Limit ans Backend (falls trips-request.limit-param gesetzt), sonst volle Antwort
+        TripsRequest req = toTripsRequest(originUIC, destinationUIC, when, maxAlternatives, true);
+        return fetchTripsPayload(req)
+                .map(payload -> new String(payload, StandardCharsets.UTF_8));
     }
 
     /* =========================
@@ -68,14 +144,16 @@ public class JourneyService {
 
     /** Kompakte Uebersicht: mehrere Verbindungen (1 Option je Trip) – unverändert. */
     public Mono<PlanResult> planOptions(String originUIC, String destinationUIC, int maxOptions) {
-        return fetchTrips(originUIC, destinationUIC)
-                .map(json -> JourneyMapper.toPlanResultOptions(json, Math.max(1, maxOptions)));
+        return fetchTripsPayload(toTripsRequest(originUIC, destinationUIC, null, Math.max(1, maxOptions), false))
+                .map(payload -> options(payload, Math.max(1, maxOptions)))
+                .defaultIfEmpty(PlanResult.of(List.of()));
     }
 
     /** Detailliert: genau 1 Verbindung als Itinerary mit allen Fahr-Legs – unverändert. */
     public Mono<PlanResult> planItinerary(String originUIC, String destinationUIC) {
-        return fetchTrips(originUIC, destinationUIC)
-                .map(JourneyMapper::toPlanResultItinerary);
+        return fetchTripsPayload(toTripsRequest(originUIC, destinationUIC, null, 1, false))
+                .map(this::itinerary)
+                .defaultIfEmpty(PlanResult.of(List.of()));
     }
 
     /** Kompakt als Flat – unverändert. */
@@ -88,38 +166,130 @@ public class JourneyService {
         return planItinerary(originUIC, destinationUIC).map(FlatMapper::toFlat);
     }
 
+    /**
+     * Vorwaermen fuer den {@link RoutePrefetcher}: die Suchen, die nextJourney und listJourneys (mit listLimit)
+     * zur Minute von when absetzen. Gecachte Suchen kosten nichts, jede andere braucht die Zustimmung von admit.
+     *
+     * @return pro abgesetzter Suche true (erfolgreich) oder false (fehlgeschlagen)
+     */
+    Flux<Boolean> prefetch(String originUIC, String destinationUIC, OffsetDateTime when, int listLimit,
+                           BooleanSupplier admit) {
+        Set<TripsRequest> requests = new LinkedHashSet<>();
+        requests.add(toTripsRequest(originUIC, destinationUIC, when, 1, false));
+        requests.add(toTripsRequest(originUIC, destinationUIC, when, pager.limit(listLimit), false));
+        return Flux.fromIterable(requests)
+                .filter(req -> !tripCache.contains(req) && admit.getAsBoolean())
+                .flatMap(req -> fetchTripsPayload(req)
+                        .map(payload -> true)
+                        .onErrorResume(e -> Mono.just(false)));
+    }
+
     /* =========================
        Internals
        ========================= */
 
-    /** Alt: ohne Zeitfilter (Kompatibilität). */
-    private Mono<JsonNode> fetchTrips(String originUIC, String destinationUIC) {
-        var req = new TripsRequest(originUIC, destinationUIC, null, null, false);
-        return client.post()
-                .uri("/v3/trips/by-origin-destination")
-                .contentType(MediaType.APPLICATION_JSON)
-                .header("Request-ID", UUID.randomUUID().toString())
-                .bodyValue(req)
-                .retrieve()
-                .bodyToMono(JsonNode.class);
-    }
-
-    /** Neu: mit Zeitfilter ab 'when' (Departure). */
-    private Mono<JsonNode> fetchTrips(String originUIC, String destinationUIC, OffsetDateTime when) {
-        var req = toTripsRequest(originUIC, destinationUIC, when, false);
-        return client.post()
-                .uri("/v3/trips/by-origin-destination")
-                .contentType(MediaType.APPLICATION_JSON)
-                .header("Request-ID", UUID.randomUUID().toString())
-                .bodyValue(req)
-                .retrieve()
-                .bodyToMono(JsonNode.class);
-    }
-
-    private TripsRequest toTripsRequest(String originUIC, String destinationUIC, OffsetDateTime when, boolean forArrival) {
+    /**
+     * Mapping-Engine gemaess chattender.fahrplan.mapping.engine: "streaming" (Default) liest direkt
+     * aus den Bytes, "tree" baut wie bisher einen JsonNode-Baum. Beide liefern dasselbe Resultat.
+     */
+    private PlanResult itinerary(byte[] payload) {
+        return streamingMapper
+                ? StreamingJourneyMapper.toPlanResultItinerary(payload)
+                : JourneyMapper.toPlanResultItinerary(readTree(payload));
+    }
+
+    /** Optionen wie {@link #options}; die Itineraries derselben Trips landen in itineraries. */
+    private PlanResult trips(byte[] payload, int maxOptions, List<PlanResult> itineraries) {
+        MappedTrips mapped;
+        if (streamingMapper) {
+            mapped = StreamingJourneyMapper.toTrips(payload, maxOptions);
+        } else {
+            JsonNode root = readTree(payload);
+            mapped = new MappedTrips(JourneyMapper.toPlanResultOptions(root, maxOptions), JourneyMapper.toItineraries(root));
+        }
+        itineraries.addAll(mapped.itineraries());
+        return mapped.options();
+    }
+
+    private PlanResult options(byte[] payload, int maxOptions) {
+        return streamingMapper
+                ? StreamingJourneyMapper.toPlanResultOptions(payload, maxOptions)
+                : JourneyMapper.toPlanResultOptions(readTree(payload), maxOptions);
+    }
+
+    /** Unbekannte Engines fallen nicht still auf streaming zurueck, ein Tippfehler scheitert beim Start. */
+    static boolean streaming(String mappingEngine) {
+        String engine = mappingEngine == null ? "" : mappingEngine.trim().toLowerCase(Locale.ROOT);
+        return switch (engine) {
+            case "streaming" -> true;
+            case "tree" -> false;
+            default -> throw new IllegalArgumentException(
+                    "Unknown chattender.fahrplan.mapping.engine '" + mappingEngine + "', expected streaming or tree");
+        };
+    }
+
+    /**
+     * Wie {@link #postTrips}; lehnt der Journey-Service ein {@link TripsRequestOptions}-Feld ausdruecklich ab
+     * (400, dessen Body das Feld nennt) und klappt dieselbe Suche ohne die Felder, werden sie fuer alle weiteren
+     * Suchen abgeschaltet. Jeder andere 400 (Station, Datum) geht unveraendert an den Aufrufer.
+     */
+    private Mono<byte[]> fetchTripsPayload(TripsRequest req) {
+        if (req.upstream().isEmpty()) return postTrips(req);
+        return postTrips(req).onErrorResume(e -> rejectsField(e, req.upstream()), e -> postTrips(req.minimal())
+                .doOnNext(payload -> requestOptions.disable(req.upstream())));
+    }
+
+    static boolean rejectsField(Throwable e, Map<String, Object> fields) {
+        if (!(e instanceof WebClientResponseException w) || w.getStatusCode().value() != 400) return false;
+        String body = w.getResponseBodyAsString();
+        return fields.keySet().stream().anyMatch(body::contains);
+    }
+
+    /**
+     * Payload aus dem {@link TripSearchCache}, sonst POST an den Journey-Service.
+     * Gleichzeitige identische Suchen teilen sich einen POST ({@link SingleFlight}), der erst nach Zuteilung
+     * von Heap-Budget ({@link PayloadBudget}) abgesetzt wird.
+     */
+    private Mono<byte[]> postTrips(TripsRequest req) {
+        return Mono.defer(() -> {
+            byte[] cached = tripCache.get(req);
+            if (cached != null) return Mono.just(cached);
+            return tripSearches.execute(req, () -> payloadBudget.acquire().flatMap(permit -> client.post()
+                    .uri("/v3/trips/by-origin-destination")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header("Request-ID", UUID.randomUUID().toString())
+                    .bodyValue(req)
+                    .retrieve()
+                    .bodyToMono(byte[].class)
+                    .transform(metrics.upstream(JourneyMetrics.TRIPS))
+                    // POST: nur 429/503 werden wiederholt
+                    .transform(guard.guard(JourneyMetrics.TRIPS, false))
+                    .doOnNext(payload -> {
+                        permit.resize(payload.length);
+                        metrics.payloadBytes(JourneyMetrics.TRIPS, payload.length);
+                        tripCache.put(req, payload);
+                    })
+                    // die wartenden Aufrufer mappen synchron in onNext, danach ist der Puffer frei
+                    .doFinally(signal -> permit.release())));
+        });
+    }
+
+    private JsonNode readTree(byte[] payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable journey-service response", e);
+        }
+    }
+
+    /**
+     * @param limit gewuenschte Anzahl Trips (null = Backend-Default)
+     * @param raw   volle Antwort fuer raw, ohne Detail-Optionen
+     */
+    private TripsRequest toTripsRequest(String originUIC, String destinationUIC, OffsetDateTime when, Integer limit, boolean raw) {
         String d = when == null ? null : DATE.format(when);
         String t = when == null ? null : TIME.format(when);
-        return new TripsRequest(originUIC, destinationUIC, d, t, forArrival);
+        return new TripsRequest(originUIC, destinationUIC, d, t, false, requestOptions.forSearch(limit, raw));
     }
 
     /**
@@ -128,6 +298,19 @@ public class JourneyService {
      * date: yyyy-MM-dd (Europe/Zurich)
      * time: HH:mm (Europe/Zurich)
      * forArrival: Abfahrts- (false) oder Ankunftssuche (true)
+     * upstream: zusaetzliche Felder aus {@link TripsRequestOptions} (Limit, Detailgrad), flach im Body
      */
-    record TripsRequest(String origin, String destination, String date, String time, Boolean forArrival) {}
+    record TripsRequest(String origin, String destination, String date, String time, Boolean forArrival,
+                        @JsonIgnore Map<String, Object> upstream) {
+
+        @JsonAnyGetter
+        public Map<String, Object> upstreamFields() {
+            return upstream;
+        }
+
+        /** Dieselbe Suche ohne zusaetzliche Felder. */
+        TripsRequest minimal() {
+            return new TripsRequest(origin, destination, date, time, forArrival, Map.of());
+        }
+    }
 }
@@ -0,0 +1,34 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * "journeyToken" in der Readiness-Gruppe: ready erst, wenn ein gueltiges journey-service Token gehalten wird,
+ * damit der erste Tool-Aufruf nach einem Kaltstart nicht auf Azure AD wartet.
+ * Ein fehlgeschlagener Refresh bleibt UP, solange das gehaltene Token gilt; ist es abgelaufen, geht die Readiness
+ * auf DOWN (mit dem Fehler), vor dem ersten Token auf OUT_OF_SERVICE.
+ */
+@Component
+class JourneyTokenHealthIndicator implements HealthIndicator {
+
+    private final JourneyTokenManager tokens;
+
+    JourneyTokenHealthIndicator(JourneyTokenManager journeyTokenManager) {
+        this.tokens = journeyTokenManager;
+    }
+
+    @Override
+    public Health health() {
+        var token = tokens.valid();
+        if (token == null) {
+            var failure = tokens.lastFailure();
+            return failure != null
+                    ? Health.down().withDetail("token", "none").withDetail("error", failure.toString()).build()
+                    : Health.status(Status.OUT_OF_SERVICE).withDetail("token", "none").build();
+        }
+        return Health.up().withDetail("expiresAt", token.expiresAt().toString()).build();
+    }
+}
@@ -0,0 +1,160 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.client.endpoint.OAuth2ClientCredentialsGrantRequest;
+import org.springframework.security.oauth2.client.endpoint.ReactiveOAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Client-credentials token for the journey-service, held proactively instead of fetched on the first call.
+ * <p>
+ * Fetched at startup, refreshed in the background {@code refresh-before} ahead of expiry (at the latest at half the
+ * lifetime), failed refreshes are retried every {@code retry-interval}. Concurrent callers without a valid token share
+ * one token request ({@link SingleFlight}). A 401 from the journey-service drops the token, the next call fetches a new one.
+ */
+@Slf4j
+@Component
+class JourneyTokenManager implements SmartLifecycle {
+
+    static final String REGISTRATION_ID = "journey";
+
+    private final ReactiveClientRegistrationRepository registrations;
+    private final ReactiveOAuth2AccessTokenResponseClient<OAuth2ClientCredentialsGrantRequest> tokenClient;
+    private final Duration refreshBefore;
+    private final Duration retryInterval;
+    private final Duration skew;
+    private final Clock clock = Clock.systemUTC();
+
+    private final AtomicReference<Token> current = new AtomicReference<>();
+    private final SingleFlight<String, Token> refreshes = new SingleFlight<>();
+    private final Disposable.Swap scheduled = Disposables.swap();
+    private volatile Throwable lastFailure;
+    private volatile boolean running;
+
+    JourneyTokenManager(ReactiveClientRegistrationRepository registrations,
+                        ReactiveOAuth2AccessTokenResponseClient<OAuth2ClientCredentialsGrantRequest> journeyTokenResponseClient,
+                        MeterRegistry meterRegistry,
+                        @Value("${chattender.fahrplan.token.refresh-before:5m}") Duration refreshBefore,
+                        @Value("${chattender.fahrplan.token.retry-interval:10s}") Duration retryInterval,
+                        @Value("${chattender.fahrplan.token.clock-skew:30s}") Duration skew) {
+        this.registrations = registrations;
+        this.tokenClient = journeyTokenResponseClient;
+        this.refreshBefore = refreshBefore;
+        this.retryInterval = retryInterval;
+        this.skew = skew;
+        Gauge.builder("chattender.token.validity", this, m -> m.secondsLeft())
+                .description("seconds until the held journey-service token expires, 0 = none")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    record Token(String value, Instant expiresAt) {}
+
+    /** Gueltiges Token, nur ohne gehaltenes Token wird (geteilt) eines geholt. */
+    Mono<String> token() {
+        return Mono.defer(() -> {
+            Token held = valid();
+            return held != null ? Mono.just(held.value()) : refresh().map(Token::value);
+        });
+    }
+
+    /** @return das gehaltene Token, sofern es noch mindestens clock-skew gueltig ist, sonst null */
+    Token valid() {
+        Token held = current.get();
+        return held != null && held.expiresAt().minus(skew).isAfter(clock.instant()) ? held : null;
+    }
+
+    /** @return Fehler des letzten Token-Requests, null sobald wieder einer gelungen ist */
+    Throwable lastFailure() {
+        return lastFailure;
+    }
+
+    /** Bearer-Header aus dem gehaltenen Token; ein 401 verwirft genau dieses Token. */
+    ExchangeFilterFunction bearerFilter() {
+        return (request, next) -> token().flatMap(value -> next
+                .exchange(ClientRequest.from(request).headers(h -> h.setBearerAuth(value)).build())
+                .doOnNext(response -> {
+                    if (response.statusCode().value() == HttpStatus.UNAUTHORIZED.value()) {
+                        current.updateAndGet(t -> t != null && t.value().equals(value) ? null : t);
+                    }
+                }));
+    }
+
+    private Mono<Token> refresh() {
+        return refreshes.execute(REGISTRATION_ID, () -> registrations.findByRegistrationId(REGISTRATION_ID)
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("No client registration '" + REGISTRATION_ID + "'")))
+                .flatMap(registration -> tokenClient.getTokenResponse(new OAuth2ClientCredentialsGrantRequest(registration)))
+                .map(response -> toToken(response.getAccessToken()))
+                .doOnNext(token -> {
+                    current.set(token);
+                    lastFailure = null;
+                    schedule(nextRefresh(token));
+                })
+                .doOnError(e -> {
+                    lastFailure = e;
+                    log.warn("journey-service token request failed, retrying in {}: {}", retryInterval, e.toString());
+                    schedule(retryInterval);
+                }));
+    }
+
+    private Token toToken(OAuth2AccessToken accessToken) {
+        Instant expiresAt = accessToken.getExpiresAt() != null
+                ? accessToken.getExpiresAt()
+                // ohne expires_in: konservativ wie ein kurzlebiges Token behandeln
+                : clock.instant().plus(refreshBefore.multipliedBy(2));
+        return new Token(accessToken.getTokenValue(), expiresAt);
+    }
+
+    private Duration nextRefresh(Token token) {
+        Duration lifetime = Duration.between(clock.instant(), token.expiresAt());
+        Duration early = lifetime.minus(refreshBefore);
+        Duration half = lifetime.dividedBy(2);
+        return early.compareTo(half) > 0 ? early : half;
+    }
+
+    private void schedule(Duration delay) {
+        if (!running) return;
+        scheduled.update(Mono.delay(delay)
+                .flatMap(tick -> refresh())
+                .subscribe(token -> { }, e -> { }));   // Fehler sind in refresh() behandelt
+    }
+
+    private double secondsLeft() {
+        Token held = current.get();
+        return held == null ? 0 : Math.max(0, Duration.between(clock.instant(), held.expiresAt()).toSeconds());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        refresh().subscribe(token -> log.info("journey-service token held until {}", token.expiresAt()), e -> { });
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduled.dispose();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
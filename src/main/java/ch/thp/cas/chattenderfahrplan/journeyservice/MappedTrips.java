@@ -0,0 +1,11 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult;
+
+import java.util.List;
+
+/**
+ * One /v3/trips payload mapped in a single pass: the compact options and, for the same trips, each trip's
+ * itinerary (held by {@link RecentJourneyLists}, so a follow-up nextJourney needs no second parse).
+ */
+record MappedTrips(PlanResult options, List<PlanResult> itineraries) {}
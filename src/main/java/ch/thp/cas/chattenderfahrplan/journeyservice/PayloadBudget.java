@@ -0,0 +1,214 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control for buffered trip payloads ({@code chattender.fahrplan.admission}).
+ * <p>
+ * Every trip search reserves its expected payload size against {@code heap-budget} before the POST goes out;
+ * the reservation is corrected to the actual size when the body has arrived and released once the callers have
+ * mapped it. The expected size is the moving average of the observed payloads times {@code headroom} (covers the
+ * parse overhead), at least {@code min-reserve} and at most the codec limit {@code http.max-in-memory-size}; until
+ * the first payload is seen the full codec limit is reserved. A single search is always admitted when nothing
+ * else is in flight, however large.
+ * <p>
+ * Searches that do not fit wait in FIFO order, at most {@code max-queue} of them and each for at most
+ * {@code queue-timeout}; the others fail with a retryable {@link UpstreamUnavailableException}.
+ * <p>
+ * Metrics: {@code chattender.upstream.buffer.budget}, {@code chattender.upstream.buffer.used} (bytes),
+ * {@code chattender.upstream.buffer.queued} and {@code chattender.upstream.buffer.rejected} (reason queue-full,
+ * timeout).
+ */
+@Component
+class PayloadBudget {
+
+    /** EWMA-Gewicht eines neuen Payloads */
+    private static final double ALPHA = 0.2;
+
+    private final boolean enabled;
+    private final long budget;
+    private final long minReserve;
+    private final long maxPayload;
+    private final double headroom;
+    private final int maxQueue;
+    private final Duration queueTimeout;
+    private final Counter queueFull;
+    private final Counter timedOut;
+
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private long used;
+    private volatile double averagePayload;
+
+    PayloadBudget(MeterRegistry registry,
+                  @Value("${chattender.fahrplan.admission.enabled:true}") boolean enabled,
+                  @Value("${chattender.fahrplan.admission.heap-budget:96MB}") DataSize heapBudget,
+                  @Value("${chattender.fahrplan.admission.min-reserve:256KB}") DataSize minReserve,
+                  @Value("${chattender.fahrplan.admission.headroom:2.0}") double headroom,
+                  @Value("${chattender.fahrplan.admission.max-queue:100}") int maxQueue,
+                  @Value("${chattender.fahrplan.admission.queue-timeout:3s}") Duration queueTimeout,
+                  @Value("${chattender.fahrplan.http.max-in-memory-size:5MB}") DataSize maxInMemorySize) {
+        if (heapBudget.toBytes() <= 0 || maxQueue < 0 || headroom < 1.0) {
+            throw new IllegalArgumentException("admission: heap-budget must be positive, max-queue >= 0, headroom >= 1");
+        }
+        this.enabled = enabled;
+        this.budget = heapBudget.toBytes();
+        this.maxPayload = maxInMemorySize.toBytes();
+        this.minReserve = Math.min(minReserve.toBytes(), maxPayload);
+        this.headroom = headroom;
+        this.maxQueue = maxQueue;
+        this.queueTimeout = queueTimeout;
+
+        Gauge.builder("chattender.upstream.buffer.budget", this, b -> b.budget)
+                .description("heap budget for buffered journey-service payloads")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("chattender.upstream.buffer.used", this, PayloadBudget::used)
+                .description("payload bytes reserved by trip searches in flight")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("chattender.upstream.buffer.queued", this, PayloadBudget::queued)
+                .description("trip searches waiting for payload budget")
+                .register(registry);
+        this.queueFull = rejected(registry, "queue-full");
+        this.timedOut = rejected(registry, "timeout");
+    }
+
+    /**
+     * Reserviert Budget fuer einen Payload; wartet falls noetig in der Queue.
+     * Der {@link Permit} muss genau einmal freigegeben werden.
+     */
+    Mono<Permit> acquire() {
+        if (!enabled) return Mono.just(new Permit(0));
+        return Mono.<Permit>create(sink -> {
+                    Waiter waiter = new Waiter(estimate(), sink);
+                    boolean admitted;
+                    boolean queued = false;
+                    synchronized (this) {
+                        admitted = waiters.isEmpty() && fits(waiter.bytes);
+                        if (admitted) {
+                            used += waiter.bytes;
+                        } else if (waiters.size() < maxQueue) {
+                            queued = waiters.offerLast(waiter);
+                        }
+                    }
+                    if (!admitted && !queued) {
+                        queueFull.increment();
+                        sink.error(busy());
+                        return;
+                    }
+                    // nach Zuteilung, aber vor Auslieferung abgebrochen: Reservation zurueckgeben
+                    sink.onCancel(() -> cancel(waiter));
+                    if (admitted) sink.success(waiter.permit);
+                })
+                .timeout(queueTimeout, Mono.defer(() -> {
+                    timedOut.increment();
+                    return Mono.error(busy());
+                }));
+    }
+
+    /** Erwartete Payload-Groesse fuer die naechste Reservation. */
+    long estimate() {
+        double average = averagePayload;
+        if (average <= 0) return maxPayload;
+        return Math.max(minReserve, Math.min(maxPayload, (long) (average * headroom)));
+    }
+
+    synchronized long used() {
+        return used;
+    }
+
+    synchronized int queued() {
+        return waiters.size();
+    }
+
+    private boolean fits(long bytes) {
+        return used == 0 || used + bytes <= budget;
+    }
+
+    private void cancel(Waiter waiter) {
+        boolean queued;
+        synchronized (this) {
+            queued = waiters.remove(waiter);
+        }
+        if (!queued) waiter.permit.release();
+    }
+
+    private void adjust(long delta) {
+        List<Waiter> admitted = new ArrayList<>();
+        synchronized (this) {
+            used += delta;
+            while (!waiters.isEmpty() && fits(waiters.peekFirst().bytes)) {
+                Waiter next = waiters.pollFirst();
+                used += next.bytes;
+                admitted.add(next);
+            }
+        }
+        admitted.forEach(w -> w.sink.success(w.permit));
+    }
+
+    private void observe(long payloadBytes) {
+        double average = averagePayload;
+        averagePayload = average <= 0 ? payloadBytes : average + ALPHA * (payloadBytes - average);
+    }
+
+    private static UpstreamUnavailableException busy() {
+        return new UpstreamUnavailableException(
+                "The timetable service is busy right now, please try again in a few seconds.");
+    }
+
+    private static Counter rejected(MeterRegistry registry, String reason) {
+        return Counter.builder("chattender.upstream.buffer.rejected")
+                .description("trip searches rejected for lack of payload budget")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private final class Waiter {
+        final long bytes;
+        final MonoSink<Permit> sink;
+        final Permit permit;
+
+        Waiter(long bytes, MonoSink<Permit> sink) {
+            this.bytes = bytes;
+            this.sink = sink;
+            this.permit = new Permit(bytes);
+        }
+    }
+
+    /** Reservation eines Payloads; {@link #release()} ist idempotent. */
+    final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private long bytes;
+
+        private Permit(long bytes) {
+            this.bytes = bytes;
+        }
+
+        /** Korrigiert die Reservation auf die tatsaechliche Groesse des Payloads. */
+        void resize(long payloadBytes) {
+            if (!enabled || released.get()) return;
+            observe(payloadBytes);
+            long delta = payloadBytes - bytes;
+            bytes = payloadBytes;
+            adjust(delta);
+        }
+
+        void release() {
+            if (enabled && released.compareAndSet(false, true)) adjust(-bytes);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bounded cache normalized station name -> StopPlace id in front of /v3/places.
+ * <p>
+ * Unknown names are cached as well (negative entry) with their own, shorter TTL.
+ * Size eviction is LRU-like (Caffeine W-TinyLFU); hits, misses and evictions are
+ * published as {@code cache.*} metrics with {@code cache=places}.
+ */
+@Component
+class PlaceCache {
+
+    private final Cache<String, Entry> cache;
+
+    PlaceCache(@Value("${chattender.fahrplan.places-cache.max-size:10000}") long maxSize,
+               @Value("${chattender.fahrplan.places-cache.ttl:12h}") Duration ttl,
+               @Value("${chattender.fahrplan.places-cache.negative-ttl:10m}") Duration negativeTtl,
+               MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new EntryExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "places");
+    }
+
+    /** @return cached entry or null if the name was not looked up recently */
+    Entry get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    void putFound(String key, String stopPlaceId) {
+        cache.put(key, new Entry(stopPlaceId));
+    }
+
+    void putMissing(String key) {
+        cache.put(key, Entry.MISSING);
+    }
+
+    record Entry(String stopPlaceId) {
+        static final Entry MISSING = new Entry(null);
+
+        boolean found() {
+            return stopPlaceId != null;
+        }
+    }
+
+    private record EntryExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<String, Entry> {
+        @Override
+        public long expireAfterCreate(String key, Entry value, long currentTime) {
+            return value.found() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
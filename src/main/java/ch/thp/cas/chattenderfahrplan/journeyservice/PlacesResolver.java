@@ -2,6 +2,7 @@ package ch.thp.cas.chattenderfahrplan.journeyservice;
 
 // 1) PlacesClient: Name -> UIC (StopPlace.id)
 
+import ch.thp.cas.chattenderfahrplan.infrastructure.JourneyMetrics;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -10,38 +11,90 @@ import reactor.core.publisher.Mono;
 @Component
 public class PlacesResolver {
 
+    // genug Kandidaten, um einen exakten Namenstreffer dem ersten Treffer vorzuziehen
+    private static final int PLACES_LIMIT = 5;
+
     private final WebClient client;
+    private final PlaceCache cache;
+    private final StationIndex index;
+    private final JourneyMetrics metrics;
+    private final UpstreamGuard guard;
+    private final SingleFlight<String, String> lookups = new SingleFlight<>();
 
-    public PlacesResolver(WebClient journeyWebClient) {
+    public PlacesResolver(WebClient journeyWebClient, PlaceCache placeCache, StationIndex stationIndex,
+                          JourneyMetrics journeyMetrics, UpstreamGuard upstreamGuard) {
         this.client = journeyWebClient;
+        this.cache = placeCache;
+        this.index = stationIndex;
+        this.metrics = journeyMetrics;
+        this.guard = upstreamGuard;
     }
 
     /**
-     * TODO incomplete because it is using only ONE match. with multiple matches it leads to wrong answers.
+     * Name -> StopPlace id. Order: offline {@link StationIndex} (unambiguous matches only),
+     * then the {@link PlaceCache}, then /v3/places with the best ranked StopPlace.
      */
     public String resolveStopPlaceId(String name) {
+        return resolveStopPlaceIdAsync(name).block();
+    }
+
+    /** Reactive Variante, damit Origin und Destination parallel aufgeloest werden koennen. */
+    public Mono<String> resolveStopPlaceIdAsync(String name) {
+        return Mono.defer(() -> {
+            var indexed = index.lookup(name);
+            if (indexed.isPresent()) return Mono.just(indexed.get());
+
+            String key = StationNames.normalize(name);
+            PlaceCache.Entry cached = cache.get(key);
+            if (cached != null) {
+                return cached.found() ? Mono.just(cached.stopPlaceId()) : Mono.error(notFound(name));
+            }
+            // gleichzeitige Anfragen fuer denselben Namen teilen sich einen GET
+            return lookups.execute(key, () -> lookup(name)
+                    .doOnNext(id -> cache.putFound(key, id))
+                    .doOnError(IllegalArgumentException.class, e -> cache.putMissing(key)));
+        });
+    }
+
+    private Mono<String> lookup(String name) {
         return client.get()
                 .uri(uri -> uri.path("/v3/places")
                         .queryParam("nameMatch", name)
                         .queryParam("type", "StopPlace")
-                        .queryParam("limit", 1)
+                        .queryParam("limit", PLACES_LIMIT)
                         .build())
                 .accept(MediaType.APPLICATION_JSON)
                 .header("Accept-Language", "de")
                 .retrieve()
                 .bodyToMono(PlaceResponse.class)
-                .flatMap(resp -> resp.firstStopPlaceId()
-                        .switchIfEmpty(Mono.error(new IllegalArgumentException("No StopPlace for: " + name)))).block();
+                .flatMap(resp -> resp.bestStopPlaceId(name)
+                        .switchIfEmpty(Mono.error(() -> notFound(name))))
+                // 200 ohne Body: ebenfalls kein Treffer statt eines leeren Monos
+                .switchIfEmpty(Mono.error(() -> notFound(name)))
+                .transform(metrics.upstream(JourneyMetrics.PLACES))
+                .transform(guard.guard(JourneyMetrics.PLACES, true));
+    }
+
+    private static IllegalArgumentException notFound(String name) {
+        return new IllegalArgumentException("No StopPlace for: " + name);
     }
 
     // Minimal DTOs für die Extraktion
     static final class PlaceResponse {
         public java.util.List<Place> places;
-        Mono<String> firstStopPlaceId() {
+
+        /** Exakter Namenstreffer (nach Normalisierung) vor der Reihenfolge des Journey-Service. */
+        Mono<String> bestStopPlaceId(String name) {
             if (places == null) return Mono.empty();
-            return places.stream()
+            String wanted = StationNames.skeleton(StationNames.normalize(name));
+            var stopPlaces = places.stream()
                     .filter(p -> "StopPlace".equalsIgnoreCase(p.type) && p.id != null)
-                    .findFirst().map(p -> Mono.just(String.valueOf(p.id)))
+                    .toList();
+            return stopPlaces.stream()
+                    .filter(p -> wanted.equals(StationNames.skeleton(StationNames.normalize(p.name))))
+                    .findFirst()
+                    .or(() -> stopPlaces.stream().findFirst())
+                    .map(p -> Mono.just(String.valueOf(p.id)))
                     .orElse(Mono.empty());
         }
     }
@@ -0,0 +1,117 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import ch.thp.cas.chattenderfahrplan.mapping.FlatPlan;
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The latest journey list per route ({@code chattender.fahrplan.recent-lists}), so nextJourney/planJourney for a
+ * departure time inside a listed window does not search again.
+ * <p>
+ * A list searched from {@code from} holds every departure from that minute up to its last listed departure; a
+ * later search for a minute inside that window has its first connection among the held trips. The list call maps
+ * each trip's itinerary in the same pass that maps its options ({@link MappedTrips}, streaming or tree engine);
+ * only the itineraries inside the window are kept, neither payloads nor trees, so holding a list costs no extra
+ * parse and a few KB of heap. The earliest itinerary departing at or after the asked minute is served. Lists are
+ * held for {@code ttl} (realtime data), a newer list for the same route replaces the older one.
+ * <p>
+ * Metrics: {@code cache.*} with {@code cache=recent-lists}, {@code chattender.recent-lists.itineraries} (served
+ * from a held list).
+ */
+@Component
+class RecentJourneyLists {
+
+    private final boolean enabled;
+    private final Cache<Route, Held> lists;
+    private final Counter derived;
+
+    RecentJourneyLists(MeterRegistry registry,
+                       @Value("${chattender.fahrplan.recent-lists.enabled:true}") boolean enabled,
+                       @Value("${chattender.fahrplan.recent-lists.ttl:2m}") Duration ttl,
+                       @Value("${chattender.fahrplan.recent-lists.max-routes:500}") long maxRoutes) {
+        this.enabled = enabled;
+        this.lists = Caffeine.newBuilder()
+                .maximumSize(maxRoutes)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, lists, "recent-lists");
+        this.derived = Counter.builder("chattender.recent-lists.itineraries")
+                .description("itineraries derived from a held journey list instead of a trip search")
+                .register(registry);
+    }
+
+    /**
+     * Haelt die Liste, die ab from gesucht wurde, mit den Itineraries ihrer Trips (aus demselben Mapping).
+     * Ohne lesbare Abfahrtszeiten wird nichts gehalten.
+     */
+    void hold(String originUIC, String destinationUIC, OffsetDateTime from, List<FlatPlan> plans,
+              List<PlanResult> tripItineraries) {
+        if (!enabled || from == null || plans.isEmpty() || tripItineraries.isEmpty()) return;
+        OffsetDateTime last = null;
+        for (FlatPlan plan : plans) {
+            for (var trip : plan.options()) {
+                OffsetDateTime dep = parse(trip.dep());
+                if (dep == null) return;
+                if (last == null || dep.isAfter(last)) last = dep;
+            }
+        }
+        if (last == null) return;
+        OffsetDateTime minute = from.truncatedTo(ChronoUnit.MINUTES);
+        List<Itinerary> itineraries = new ArrayList<>();
+        for (PlanResult itinerary : tripItineraries) {
+            if (itinerary.options().isEmpty()) continue;
+            OffsetDateTime dep = parse(itinerary.options().get(0).departureTime());
+            if (dep == null || dep.isBefore(minute) || dep.isAfter(last)) continue;
+            itineraries.add(new Itinerary(dep, itinerary));
+        }
+        if (itineraries.isEmpty()) return;
+        itineraries.sort(Comparator.comparing(Itinerary::departure));
+        lists.put(new Route(originUIC, destinationUIC), new Held(minute, last, List.copyOf(itineraries)));
+    }
+
+    /** @return Itinerary aus einer gehaltenen Liste, null wenn keine Liste die Minute von when abdeckt */
+    PlanResult itinerary(String originUIC, String destinationUIC, OffsetDateTime when) {
+        if (!enabled || when == null) return null;
+        Held held = lists.getIfPresent(new Route(originUIC, destinationUIC));
+        OffsetDateTime minute = when.truncatedTo(ChronoUnit.MINUTES);
+        if (held == null || minute.isBefore(held.from()) || minute.isAfter(held.until())) return null;
+
+        for (Itinerary itinerary : held.itineraries()) {
+            if (itinerary.departure().isBefore(minute)) continue;
+            derived.increment();
+            return itinerary.plan();
+        }
+        return null;
+    }
+
+    private static OffsetDateTime parse(String time) {
+        if (time == null || time.isBlank() || "-".equals(time)) return null;
+        try {
+            return OffsetDateTime.parse(time);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private record Route(String origin, String destination) {}
+
+    /** Abdeckung [from, until] (Minute der Suche bis letzte gelistete Abfahrt) und die Itineraries darin, nach Abfahrt */
+    private record Held(OffsetDateTime from, OffsetDateTime until, List<Itinerary> itineraries) {}
+
+    private record Itinerary(OffsetDateTime departure, PlanResult plan) {}
+}
@@ -0,0 +1,144 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-warms the {@link TripSearchCache} for the most asked routes ({@code chattender.fahrplan.prefetch}).
+ * <p>
+ * Every {@code interval} the {@code top-n} routes of {@link HotRoutes} (at least {@code min-count} searches) get the
+ * searches nextJourney and listJourneys would run for the current minute, in the second half of a minute also for
+ * the next one. Searches already in the cache are skipped; the others are bounded by {@code calls-per-minute}, so
+ * prefetching never takes more than that share of the journey-service. Counts are halved every {@code half-life}.
+ * <p>
+ * Metric: {@code chattender.prefetch.searches} (outcome fetched, failed, budget).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "chattender.fahrplan.prefetch", name = "enabled", havingValue = "true", matchIfMissing = true)
+class RoutePrefetcher implements SmartLifecycle {
+
+    private static final ZoneId ZURICH = ZoneId.of("Europe/Zurich");
+
+    private final JourneyService journeys;
+    private final HotRoutes hotRoutes;
+    private final Duration interval;
+    private final int topN;
+    private final long minCount;
+    private final int callsPerTick;
+    private final int listLimit;
+    private final Duration halfLife;
+    private final int concurrency;
+    private final Clock clock = Clock.system(ZURICH);
+    private final Counter fetched;
+    private final Counter failed;
+    private final Counter overBudget;
+    private final Disposable.Swap ticks = Disposables.swap();
+    private volatile OffsetDateTime lastDecay;
+    private volatile boolean running;
+
+    RoutePrefetcher(JourneyService journeys, HotRoutes hotRoutes, MeterRegistry registry,
+                    @Value("${chattender.fahrplan.prefetch.interval:30s}") Duration interval,
+                    @Value("${chattender.fahrplan.prefetch.top-n:20}") int topN,
+                    @Value("${chattender.fahrplan.prefetch.min-count:3}") long minCount,
+                    @Value("${chattender.fahrplan.prefetch.calls-per-minute:60}") int callsPerMinute,
+                    @Value("${chattender.fahrplan.prefetch.list-limit:6}") int listLimit,
+                    @Value("${chattender.fahrplan.prefetch.half-life:10m}") Duration halfLife,
+                    @Value("${chattender.fahrplan.prefetch.concurrency:2}") int concurrency) {
+        this.journeys = journeys;
+        this.hotRoutes = hotRoutes;
+        this.interval = interval;
+        this.topN = topN;
+        this.minCount = minCount;
+        this.callsPerTick = (int) Math.max(1, callsPerMinute * interval.toMillis() / Duration.ofMinutes(1).toMillis());
+        this.listLimit = Math.max(1, listLimit);
+        this.halfLife = halfLife;
+        this.concurrency = Math.max(1, concurrency);
+        this.fetched = counter(registry, "fetched");
+        this.failed = counter(registry, "failed");
+        this.overBudget = counter(registry, "budget");
+        this.lastDecay = OffsetDateTime.now(clock);
+    }
+
+    /** Ein Durchgang; liefert die Anzahl abgesetzter Suchen. */
+    Mono<Integer> tick() {
+        return Mono.defer(() -> {
+            OffsetDateTime now = OffsetDateTime.now(clock);
+            if (Duration.between(lastDecay, now).compareTo(halfLife) >= 0) {
+                hotRoutes.decay();
+                lastDecay = now;
+            }
+            var routes = hotRoutes.top(topN, minCount);
+            if (routes.isEmpty()) return Mono.just(0);
+
+            List<OffsetDateTime> minutes = new ArrayList<>(2);
+            minutes.add(now.truncatedTo(ChronoUnit.MINUTES));
+            if (now.getSecond() >= 30) minutes.add(now.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1));
+
+            AtomicInteger budget = new AtomicInteger(callsPerTick);
+            // heissester Route zuerst, damit das Budget bei den wichtigsten Routen landet
+            return Flux.fromIterable(minutes)
+                    .concatMap(minute -> Flux.fromIterable(routes)
+                            .flatMap(route -> journeys.prefetch(route.origin(), route.destination(), minute, listLimit,
+                                    () -> admit(budget)), concurrency))
+                    .doOnNext(ok -> (ok ? fetched : failed).increment())
+                    .count()
+                    .map(Long::intValue);
+        });
+    }
+
+    private boolean admit(AtomicInteger budget) {
+        if (budget.getAndDecrement() > 0) return true;
+        overBudget.increment();
+        return false;
+    }
+
+    private static Counter counter(MeterRegistry registry, String outcome) {
+        return Counter.builder("chattender.prefetch.searches")
+                .description("trip searches issued by the hot-route prefetcher")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        ticks.update(Flux.interval(interval, interval)
+                .onBackpressureDrop()
+                .concatMap(t -> tick()
+                        .onErrorResume(e -> {
+                            log.warn("route prefetch failed: {}", e.toString());
+                            return Mono.just(0);
+                        }), 1)
+                .subscribe(n -> { if (n > 0) log.debug("prefetched {} trip searches", n); }));
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        ticks.dispose();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
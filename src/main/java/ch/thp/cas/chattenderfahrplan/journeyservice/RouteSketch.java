@@ -0,0 +1,64 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free count-min sketch: depth rows of width counters, an estimate is the minimum over the rows and never
+ * below the true count. Memory is fixed (depth x width longs) no matter how many distinct keys are counted.
+ * {@link #halve()} ages all counts, so the estimates follow current traffic instead of all-time totals.
+ */
+final class RouteSketch {
+
+    private final int depth;
+    private final int width;
+    private final AtomicLongArray counters;
+
+    RouteSketch(int depth, int width) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("depth and width must be positive, got " + depth + "x" + width);
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counters = new AtomicLongArray(depth * width);
+    }
+
+    /** Zaehlt key einmal und liefert die neue Schaetzung. */
+    long increment(Object key) {
+        int h = spread(key.hashCode());
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.incrementAndGet(index(row, h)));
+        }
+        return min;
+    }
+
+    long estimate(Object key) {
+        int h = spread(key.hashCode());
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get(index(row, h)));
+        }
+        return min;
+    }
+
+    /** Alle Zaehler halbieren (Alterung); gleichzeitige Inkremente gehen dabei hoechstens teilweise verloren. */
+    void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.updateAndGet(i, c -> c >>> 1);
+        }
+    }
+
+    /** Pro Zeile ein eigener Hash aus zwei Basis-Hashes (Kirsch-Mitzenmacher). */
+    private int index(int row, int h) {
+        int h2 = Integer.rotateLeft(h, 16) * 0x85ebca6b | 1;
+        return row * width + Math.floorMod(h + row * h2, width);
+    }
+
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x7feb352d;
+        h ^= h >>> 15;
+        h *= 0x846ca68b;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,30 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing: concurrent calls with the same key share one upstream {@link Mono}.
+ * <p>
+ * The shared Mono is only registered while it is in flight. As soon as it terminates the key is
+ * removed, so a later caller starts a fresh call - a failure is never handed to callers that
+ * arrive after it happened. If every waiting caller cancels, the shared call is cancelled and removed
+ * as well, so an abandoned call neither keeps running nor blocks the key.
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> call.get()
+                .doFinally(signal -> inFlight.remove(k))
+                .share()));
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+}
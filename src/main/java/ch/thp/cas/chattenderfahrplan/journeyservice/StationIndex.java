@@ -0,0 +1,239 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Offline station index: name -> StopPlace id without a round trip to /v3/places.
+ * <p>
+ * Loaded once at startup from a GTFS {@code stops.txt} export (or any CSV with {@code stop_id,stop_name}).
+ * Platform rows ({@code parent_station} set) are skipped, ids like {@code Parent8507000} or
+ * {@code 8507000:0:1} are reduced to the UIC number.
+ * <p>
+ * Matching works on {@link StationNames#skeleton skeleton} names: exact hit first, otherwise a trigram
+ * Dice score with a bonus for word-prefix matches ("Zuerich" -> "Zürich HB"). A match is only accepted when it
+ * scores above {@code min-score} and leads the runner-up by {@code min-margin}; ambiguous names
+ * return empty and go to the journey-service.
+ * <p>
+ * Footprint: one key string and one int per station plus the trigram postings as int arrays,
+ * a few MB for the full Swiss DIDOK list. A fuzzy lookup only touches the postings of the query's trigrams and
+ * scores the stations found there, so its cost grows with those postings, not with the size of the list.
+ */
+@Slf4j
+@Component
+class StationIndex {
+
+    private final double minScore;
+    private final double minMargin;
+
+    private final String[] keys;
+    private final int[] ids;
+    private final short[] gramCounts;
+    private final Map<String, Integer> exact;
+    private final Map<String, int[]> postings;
+
+    @Autowired
+    StationIndex(@Value("${chattender.fahrplan.stations.enabled:true}") boolean enabled,
+                 @Value("${chattender.fahrplan.stations.location:classpath:stations/stops.txt}") Resource location,
+                 @Value("${chattender.fahrplan.stations.min-score:0.8}") double minScore,
+                 @Value("${chattender.fahrplan.stations.min-margin:0.05}") double minMargin) {
+        this(enabled ? read(location) : List.of(), minScore, minMargin);
+        log.info("station index loaded with {} stop places (enabled={}, location={})", keys.length, enabled, location);
+    }
+
+    StationIndex(Reader stops, double minScore, double minMargin) throws IOException {
+        this(parse(stops), minScore, minMargin);
+    }
+
+    private StationIndex(List<Station> stations, double minScore, double minMargin) {
+        this.minScore = minScore;
+        this.minMargin = minMargin;
+        int n = stations.size();
+        this.keys = new String[n];
+        this.ids = new int[n];
+        this.gramCounts = new short[n];
+        this.exact = new HashMap<>(n * 2);
+        Map<String, List<Integer>> building = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Station st = stations.get(i);
+            keys[i] = st.key();
+            ids[i] = st.id();
+            exact.putIfAbsent(st.key(), i);
+            String[] grams = trigrams(st.key());
+            gramCounts[i] = (short) grams.length;
+            for (String g : grams) building.computeIfAbsent(g, k -> new ArrayList<>()).add(i);
+        }
+        this.postings = new HashMap<>(building.size() * 2);
+        building.forEach((g, list) -> postings.put(g, list.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /** @return StopPlace id of the unambiguous best match, empty if unknown or ambiguous */
+    Optional<String> lookup(String name) {
+        if (keys.length == 0) return Optional.empty();
+        String q = StationNames.skeleton(StationNames.normalize(name));
+        if (q.isEmpty()) return Optional.empty();
+
+        Integer hit = exact.get(q);
+        if (hit != null) return Optional.of(Integer.toString(ids[hit]));
+
+        String[] grams = trigrams(q);
+        int[] touched = candidates(grams);
+
+        // sortiert: gleiche Stationen liegen nebeneinander, die Laenge eines Laufs ist die Anzahl gemeinsamer Trigramme
+        int best = -1;
+        double bestScore = 0, secondScore = 0;
+        for (int from = 0; from < touched.length; ) {
+            int i = touched[from];
+            int to = from;
+            while (to < touched.length && touched[to] == i) to++;
+            double score = score(q, grams.length, i, to - from);
+            from = to;
+            if (best < 0 || score > bestScore
+                    || (score == bestScore && keys[i].length() < keys[best].length())) {
+                secondScore = bestScore;
+                bestScore = score;
+                best = i;
+            } else if (score > secondScore) {
+                secondScore = score;
+            }
+        }
+        if (best < 0 || bestScore < minScore || bestScore - secondScore < minMargin) {
+            return Optional.empty();
+        }
+        return Optional.of(Integer.toString(ids[best]));
+    }
+
+    /**
+     * Stationen aus den Postings der Trigramme, sortiert, eine pro gemeinsamem Trigramm. Kostet nur so viel wie
+     * die getroffenen Postings lang sind, nicht wie der ganze Index.
+     */
+    private int[] candidates(String[] grams) {
+        int[][] hits = new int[grams.length][];
+        int total = 0;
+        for (int g = 0; g < grams.length; g++) {
+            hits[g] = postings.get(grams[g]);
+            if (hits[g] != null) total += hits[g].length;
+        }
+        int[] touched = new int[total];
+        int n = 0;
+        for (int[] posting : hits) {
+            if (posting == null) continue;
+            System.arraycopy(posting, 0, touched, n, posting.length);
+            n += posting.length;
+        }
+        Arrays.sort(touched);
+        return touched;
+    }
+
+    private double score(String query, int queryGrams, int station, int common) {
+        double dice = 2.0 * common / (queryGrams + gramCounts[station]);
+        // "zurich" ist Wortpraefix von "zurich hb": klar besser als ein zufaelliger Trigramm-Treffer
+        if (keys[station].startsWith(query + " ")) return 0.8 + 0.2 * dice;
+        return dice;
+    }
+
+    private static String[] trigrams(String key) {
+        String padded = " " + key + " ";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) grams.add(padded.substring(i, i + 3));
+        return grams.toArray(String[]::new);
+    }
+
+    // ---------- Loading ----------
+
+    private static List<Station> read(Resource location) {
+        if (location == null || !location.exists()) {
+            log.warn("station list {} not found, all names go to the journey-service", location);
+            return List.of();
+        }
+        try (Reader reader = new InputStreamReader(location.getInputStream(), StandardCharsets.UTF_8)) {
+            return parse(reader);
+        } catch (IOException | RuntimeException e) {
+            log.warn("failed to load station list {}, all names go to the journey-service", location, e);
+            return List.of();
+        }
+    }
+
+    private static List<Station> parse(Reader stops) throws IOException {
+        BufferedReader in = new BufferedReader(stops);
+        String header = in.readLine();
+        if (header == null) return List.of();
+        List<String> columns = splitCsv(header.replace("\uFEFF", ""));
+        int idCol = columns.indexOf("stop_id");
+        int nameCol = columns.indexOf("stop_name");
+        int parentCol = columns.indexOf("parent_station");
+        if (idCol < 0 || nameCol < 0) throw new IOException("stop_id/stop_name columns missing in " + columns);
+
+        Map<Integer, Station> byId = new HashMap<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isBlank()) continue;
+            List<String> row = splitCsv(line);
+            if (row.size() <= Math.max(idCol, nameCol)) continue;
+            if (parentCol >= 0 && parentCol < row.size() && !row.get(parentCol).isBlank()) continue;
+            Integer id = uic(row.get(idCol));
+            String key = StationNames.skeleton(StationNames.normalize(row.get(nameCol)));
+            if (id == null || key.isEmpty()) continue;
+            byId.putIfAbsent(id, new Station(id, key));
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    private static Integer uic(String stopId) {
+        String s = stopId.trim();
+        if (s.startsWith("Parent")) s = s.substring("Parent".length());
+        int colon = s.indexOf(':');
+        if (colon >= 0) s = s.substring(0, colon);
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static List<String> splitCsv(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') { cur.append('"'); i++; }
+                else if (c == '"') quoted = false;
+                else cur.append(c);
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(cur.toString().trim());
+                cur.setLength(0);
+            } else {
+                cur.append(c);
+            }
+        }
+        out.add(cur.toString().trim());
+        return out;
+    }
+
+    private record Station(int id, String key) {}
+}
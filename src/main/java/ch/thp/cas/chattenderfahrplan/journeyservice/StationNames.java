@@ -0,0 +1,35 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalisierung von Stationsnamen, wie sie vom LLM kommen.
+ * "Zürich HB", "zuerich  hb" und "ZUERICH HB" ergeben denselben Schluessel.
+ * Umlaute werden transkribiert (ü -> ue), uebrige Akzente entfernt (è -> e),
+ * Satzzeichen und Mehrfach-Leerzeichen zu einem Leerzeichen zusammengefasst.
+ */
+final class StationNames {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private StationNames() {}
+
+    static String normalize(String name) {
+        if (name == null) return "";
+        String s = Normalizer.normalize(name, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        s = s.replace("ä", "ae").replace("ö", "oe").replace("ü", "ue").replace("ß", "ss");
+        s = MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(s).replaceAll(" ").trim();
+    }
+
+    /**
+     * Groebere Form fuer das Matching: ae/oe/ue -> a/o/u, damit "Zurich", "Zuerich" und "Zürich"
+     * zusammenfallen. Erwartet einen bereits normalisierten Namen.
+     */
+    static String skeleton(String normalized) {
+        return normalized.replace("ae", "a").replace("oe", "o").replace("ue", "u");
+    }
+}
@@ -0,0 +1,527 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import ch.thp.cas.chattenderfahrplan.mapping.FlatPlan;
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Same mapping as {@link JourneyMapper}, but straight from the payload bytes with the Jackson streaming API.
+ * <p>
+ * No JsonNode tree is built: per trip only the fields the mapping reads are collected into small holders,
+ * every other sub-tree is skipped, and parsing stops as soon as the itinerary or {@code maxOptions} trips
+ * are mapped. The stop point resolution (routeIndex, stopUse, boarding flags, first/last fallback)
+ * mirrors {@code JourneyMapper.resolveDepArrStopPoints} one to one, the output is identical.
+ */
+public final class StreamingJourneyMapper {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private StreamingJourneyMapper() {}
+
+    // 1) Detailliert: genau 1 Verbindung als Itinerary
+    public static PlanResult toPlanResultItinerary(byte[] payload) {
+        List<PlanResult.TripOption> result = new ArrayList<>();
+        forEachTrip(payload, legs -> {
+            if (legs == null) return true;
+            for (Leg leg : legs) {
+                if (!leg.isRide()) continue;
+                PlanResult.TripOption option = toOption(leg, leg);
+                if (option != null) result.add(option);
+            }
+            return result.isEmpty(); // nur erste Verbindung
+        });
+        return PlanResult.of(result);
+    }
+
+    // 2) Optionen: mehrere Verbindungen kompakt
+    public static PlanResult toPlanResultOptions(byte[] payload, int maxOptions) {
+        List<PlanResult.TripOption> options = new ArrayList<>();
+        forEachTrip(payload, legs -> {
+            if (legs == null || legs.isEmpty()) return true;
+            Leg firstRide = null, lastRide = null;
+            for (Leg leg : legs) {
+                if (leg.isRide()) {
+                    if (firstRide == null) firstRide = leg;
+                    lastRide = leg;
+                }
+            }
+            if (firstRide == null) return true;
+            PlanResult.TripOption option = toOption(firstRide, lastRide);
+            if (option != null) options.add(option);
+            return !(maxOptions > 0 && options.size() >= maxOptions);
+        });
+        return PlanResult.of(options);
+    }
+
+    /**
+     * Options like {@link #toPlanResultOptions} and, in the same pass, the itinerary of each of these trips
+     * (as {@link #toPlanResultItinerary} would map the trip on its own; trips without a ride leg are left out).
+     */
+    static MappedTrips toTrips(byte[] payload, int maxOptions) {
+        List<PlanResult.TripOption> options = new ArrayList<>();
+        List<PlanResult> itineraries = new ArrayList<>();
+        forEachTrip(payload, legs -> {
+            if (legs == null || legs.isEmpty()) return true;
+            List<PlanResult.TripOption> rides = new ArrayList<>();
+            Leg firstRide = null, lastRide = null;
+            for (Leg leg : legs) {
+                if (!leg.isRide()) continue;
+                if (firstRide == null) firstRide = leg;
+                lastRide = leg;
+                PlanResult.TripOption ride = toOption(leg, leg);
+                if (ride != null) rides.add(ride);
+            }
+            if (!rides.isEmpty()) itineraries.add(PlanResult.of(rides));
+            if (firstRide == null) return true;
+            PlanResult.TripOption option = toOption(firstRide, lastRide);
+            if (option != null) options.add(option);
+            return !(maxOptions > 0 && options.size() >= maxOptions);
+        });
+        return new MappedTrips(PlanResult.of(options), itineraries);
+    }
+
+    // 3) Liste flacher Pläne
+    public static List<FlatPlan> toFlatPlans(byte[] payload, int maxOptions) {
+        return JourneyMapper.toFlatPlans(toPlanResultOptions(payload, Math.max(1, maxOptions)));
+    }
+
+    // ---------- Mapping ----------
+
+    private static PlanResult.TripOption toOption(Leg first, Leg last) {
+        StopPair depPair = resolveDepArrStopPoints(first.stopPoints(), first.product());
+        StopPair arrPair = first == last ? depPair : resolveDepArrStopPoints(last.stopPoints(), last.product());
+        if (depPair.dep == null || arrPair.arr == null) return null;
+
+        Call dep = depPair.dep.departure;
+        Call arr = arrPair.arr.arrival;
+        Product prod = first.product();
+        String service = prod != null
+                ? JourneyMapper.serviceLabel(nz(prod.nameFormatted), nz(prod.name), nz(prod.subMode), nz(prod.line))
+                : null;
+        String operator = prod != null ? nz(prod.operatorName) : null;
+        String direction = first.direction();
+
+        return new PlanResult.TripOption(
+                dep.time(), arr.time(), service, operator, dep.quay(), arr.quay(), direction,
+                nz(depPair.dep.placeName), nz(arrPair.arr.placeName)
+        );
+    }
+
+    private static StopPair resolveDepArrStopPoints(List<Sp> stopPoints, Product product) {
+        if (stopPoints == null || stopPoints.isEmpty()) return new StopPair(null, null);
+
+        Integer idxFrom = product != null ? product.routeIndexFrom : null;
+        Integer idxTo = product != null ? product.routeIndexTo : null;
+
+        Sp depSp = idxFrom != null ? findByRouteIndex(stopPoints, idxFrom) : null;
+        Sp arrSp = idxTo != null ? findByRouteIndex(stopPoints, idxTo) : null;
+
+        if (depSp == null || arrSp == null) {
+            Integer firstRi = stopPoints.get(0).routeIndex;
+            if (firstRi != null) {
+                if (depSp == null && idxFrom != null) {
+                    int pos = idxFrom - firstRi;
+                    if (pos >= 0 && pos < stopPoints.size()) depSp = stopPoints.get(pos);
+                }
+                if (arrSp == null && idxTo != null) {
+                    int pos = idxTo - firstRi;
+                    if (pos >= 0 && pos < stopPoints.size()) arrSp = stopPoints.get(pos);
+                }
+            }
+        }
+
+        if (depSp == null) depSp = findByUseOrFlag(stopPoints, true);
+        if (arrSp == null) arrSp = findByUseOrFlag(stopPoints, false);
+
+        if (depSp == null) depSp = findFirstWithDeparture(stopPoints);
+        if (arrSp == null) arrSp = findLastWithArrival(stopPoints);
+
+        return new StopPair(depSp, arrSp);
+    }
+
+    private static Sp findByRouteIndex(List<Sp> stopPoints, int target) {
+        for (Sp sp : stopPoints) {
+            if (sp.hasRouteIndex && sp.routeIndexAsInt == target) return sp;
+        }
+        return null;
+    }
+
+    private static Sp findByUseOrFlag(List<Sp> stopPoints, boolean wantDeparture) {
+        if (wantDeparture) {
+            for (Sp sp : stopPoints) {
+                if ("ACCESS".equalsIgnoreCase(sp.stopUse)) return sp;
+            }
+            for (Sp sp : stopPoints) {
+                if (sp.forBoarding) return sp;
+            }
+        } else {
+            for (int i = stopPoints.size() - 1; i >= 0; i--) {
+                if ("EGRESS".equalsIgnoreCase(stopPoints.get(i).stopUse)) return stopPoints.get(i);
+            }
+            for (int i = stopPoints.size() - 1; i >= 0; i--) {
+                Sp sp = stopPoints.get(i);
+                if (sp.forAlighting) return sp;
+                if (sp.hasArrival) return sp;
+            }
+        }
+        return null;
+    }
+
+    private static Sp findFirstWithDeparture(List<Sp> stopPoints) {
+        for (Sp sp : stopPoints) {
+            if (sp.hasDeparture) return sp;
+        }
+        return stopPoints.get(0);
+    }
+
+    private static Sp findLastWithArrival(List<Sp> stopPoints) {
+        for (int i = stopPoints.size() - 1; i >= 0; i--) {
+            if (stopPoints.get(i).hasArrival) return stopPoints.get(i);
+        }
+        return stopPoints.get(stopPoints.size() - 1);
+    }
+
+    // ---------- Parsing ----------
+
+    @FunctionalInterface
+    private interface TripVisitor {
+        /** @param legs legs of the trip, null if the trip has no legs array; @return false to stop parsing */
+        boolean visit(List<Leg> legs);
+    }
+
+    @FunctionalInterface
+    private interface ValueReader<T> {
+        T read(JsonParser p) throws IOException;
+    }
+
+    private static void forEachTrip(byte[] payload, TripVisitor visitor) {
+        if (payload == null || payload.length == 0) return;
+        try (JsonParser p = JSON.createParser(payload)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken t = p.nextToken();
+                if (!"trips".equals(field)) {
+                    p.skipChildren();
+                    continue;
+                }
+                if (t == JsonToken.START_ARRAY) {
+                    while (p.nextToken() != JsonToken.END_ARRAY) {
+                        if (!visitor.visit(readTrip(p))) return;
+                    }
+                } else if (t == JsonToken.START_OBJECT) {
+                    // wie JsonNode-Iteration ueber ein Objekt: die Werte
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        p.nextToken();
+                        if (!visitor.visit(readTrip(p))) return;
+                    }
+                }
+                return;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable journey-service response", e);
+        }
+    }
+
+    private static List<Leg> readTrip(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        List<Leg> legs = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken t = p.nextToken();
+            if ("legs".equals(field)) {
+                legs = t == JsonToken.START_ARRAY ? readArray(p, StreamingJourneyMapper::readLeg) : null;
+                if (legs == null) p.skipChildren();
+            } else {
+                p.skipChildren();
+            }
+        }
+        return legs;
+    }
+
+    private static Leg readLeg(JsonParser p) throws IOException {
+        Leg leg = new Leg();
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return leg;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "type" -> leg.type = text(p);
+                case "serviceJourney" -> leg.serviceJourney = readServiceJourney(p);
+                case "directions" -> leg.directions = readDirections(p);
+                default -> p.skipChildren();
+            }
+        }
+        return leg;
+    }
+
+    private static ServiceJourney readServiceJourney(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        ServiceJourney sj = new ServiceJourney();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken t = p.nextToken();
+            switch (field) {
+                case "stopPoints" -> sj.stopPoints = t == JsonToken.START_ARRAY
+                        ? readArray(p, StreamingJourneyMapper::readStopPoint) : skip(p);
+                case "serviceProducts" -> sj.product = readFirstProduct(p);
+                case "directions" -> sj.directions = readDirections(p);
+                default -> p.skipChildren();
+            }
+        }
+        return sj;
+    }
+
+    /** serviceProducts[0]; null wenn kein oder leeres Array. */
+    private static Product readFirstProduct(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        Product product = null;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (product == null) product = readProduct(p);
+            else p.skipChildren();
+        }
+        return product;
+    }
+
+    private static Product readProduct(JsonParser p) throws IOException {
+        Product prod = new Product();
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return prod;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "nameFormatted" -> prod.nameFormatted = text(p);
+                case "name" -> prod.name = text(p);
+                case "line" -> prod.line = text(p);
+                case "vehicleMode" -> prod.subMode = nestedText(p, "vehicleSubModeShortName");
+                case "operator" -> prod.operatorName = nestedText(p, "name");
+                case "routeIndexFrom" -> prod.routeIndexFrom = intOrNull(p);
+                case "routeIndexTo" -> prod.routeIndexTo = intOrNull(p);
+                default -> p.skipChildren();
+            }
+        }
+        return prod;
+    }
+
+    private static Directions readDirections(JsonParser p) throws IOException {
+        if (p.currentToken() != JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return null;
+        }
+        Directions dirs = null;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (dirs == null) dirs = new Directions(nestedText(p, "name"));
+            else p.skipChildren();
+        }
+        return dirs;
+    }
+
+    private static Sp readStopPoint(JsonParser p) throws IOException {
+        Sp sp = new Sp();
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return sp;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken t = p.nextToken();
+            switch (field) {
+                case "routeIndex" -> {
+                    sp.hasRouteIndex = true;
+                    sp.routeIndex = intOrNull(p);
+                    sp.routeIndexAsInt = sp.routeIndex == null ? 0 : sp.routeIndex;
+                }
+                case "stopUse" -> sp.stopUse = text(p);
+                case "forBoarding" -> sp.forBoarding = bool(p, t);
+                case "forAlighting" -> sp.forAlighting = bool(p, t);
+                case "departure" -> {
+                    sp.hasDeparture = true;
+                    sp.departure = readCall(p);
+                }
+                case "arrival" -> {
+                    sp.hasArrival = true;
+                    sp.arrival = readCall(p);
+                }
+                case "place" -> sp.placeName = nestedText(p, "name");
+                default -> p.skipChildren();
+            }
+        }
+        return sp;
+    }
+
+    private static Call readCall(JsonParser p) throws IOException {
+        Call call = new Call();
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return call;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            p.nextToken();
+            switch (field) {
+                case "timeRt" -> call.timeRt = text(p);
+                case "timeAimed" -> call.timeAimed = text(p);
+                case "quayFormatted" -> call.quayFormatted = text(p);
+                case "quayRt" -> call.quayRt = nestedText(p, "name");
+                case "quayAimed" -> call.quayAimed = nestedText(p, "name");
+                default -> p.skipChildren();
+            }
+        }
+        return call;
+    }
+
+    private static <T> List<T> readArray(JsonParser p, ValueReader<T> reader) throws IOException {
+        List<T> out = new ArrayList<>();
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            out.add(reader.read(p));
+        }
+        return out;
+    }
+
+    private static <T> T skip(JsonParser p) throws IOException {
+        p.skipChildren();
+        return null;
+    }
+
+    /** Wert von {@code field} im aktuellen Objekt (null wenn kein Objekt), Rest wird uebersprungen. */
+    private static String nestedText(JsonParser p, String field) throws IOException {
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            p.skipChildren();
+            return null;
+        }
+        String value = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            if (field.equals(name)) value = text(p);
+            else p.skipChildren();
+        }
+        return value;
+    }
+
+    /** JsonNode.asText()-Semantik: Skalare als Text, Container als "", null als null. */
+    private static String text(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NULL) return null;
+        if (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return "";
+        }
+        return p.getText();
+    }
+
+    /** asIntegerOrNull-Semantik: null bleibt null, sonst asInt() (Container und Unlesbares -> 0). */
+    private static Integer intOrNull(JsonParser p) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NULL) return null;
+        if (t == JsonToken.START_OBJECT || t == JsonToken.START_ARRAY) {
+            p.skipChildren();
+            return 0;
+        }
+        return p.getValueAsInt(0);
+    }
+
+    /** asBoolean(false)-Semantik. */
+    private static boolean bool(JsonParser p, JsonToken t) throws IOException {
+        return switch (t) {
+            case VALUE_TRUE -> true;
+            case VALUE_NUMBER_INT -> p.getLongValue() != 0;
+            case VALUE_STRING -> "true".equals(p.getText().trim());
+            case START_OBJECT, START_ARRAY -> {
+                p.skipChildren();
+                yield false;
+            }
+            default -> false;
+        };
+    }
+
+    private static String nz(String s) {
+        return (s != null && !s.isBlank()) ? s : null;
+    }
+
+    // ---------- Holder: nur die Felder, die das Mapping liest ----------
+
+    private static final class Leg {
+        String type;
+        ServiceJourney serviceJourney;
+        Directions directions;
+
+        boolean isRide() {
+            return "PTRideLeg".equalsIgnoreCase(type);
+        }
+
+        List<Sp> stopPoints() {
+            return serviceJourney != null ? serviceJourney.stopPoints : null;
+        }
+
+        Product product() {
+            return serviceJourney != null ? serviceJourney.product : null;
+        }
+
+        String direction() {
+            if (serviceJourney != null && serviceJourney.directions != null) return nz(serviceJourney.directions.firstName);
+            if (directions != null) return nz(directions.firstName);
+            return null;
+        }
+    }
+
+    private static final class ServiceJourney {
+        List<Sp> stopPoints;
+        Product product;
+        Directions directions;
+    }
+
+    private record Directions(String firstName) {}
+
+    private static final class Product {
+        String nameFormatted, name, subMode, line, operatorName;
+        Integer routeIndexFrom, routeIndexTo;
+    }
+
+    private static final class Sp {
+        boolean hasRouteIndex;
+        Integer routeIndex;
+        int routeIndexAsInt;
+        String stopUse;
+        boolean forBoarding, forAlighting;
+        boolean hasDeparture, hasArrival;
+        Call departure = new Call(), arrival = new Call();
+        String placeName;
+    }
+
+    private static final class Call {
+        String timeRt, timeAimed, quayFormatted, quayRt, quayAimed;
+
+        String time() {
+            String rt = nz(timeRt);
+            return rt != null ? rt : nz(timeAimed);
+        }
+
+        String quay() {
+            return JourneyMapper.quay(nz(quayFormatted), nz(quayRt), nz(quayAimed));
+        }
+    }
+
+    private record StopPair(Sp dep, Sp arr) {}
+}
@@ -0,0 +1,153 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult;
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult.TripOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Paging for option lists larger than one /v3/trips response ({@code chattender.fahrplan.paging}).
+ * <p>
+ * The caller always runs the normal single search first; only if it returns fewer than the requested options does
+ * the pager fetch the shortfall. The window after the last departure of that response is split into consecutive
+ * departure-time slices of {@code slice}, one search per {@code trips-per-search} missing options, at most
+ * {@code max-parallel} in flight. Results are merged, de-duplicated by departure and service and
+ * sorted. Only the gap-free prefix is used: if a slice's last departure does not reach the start of the next slice,
+ * trips in between may be missing, so the next round continues right after the covered part, with slices narrowed
+ * to what one response actually spanned. At most {@code max-rounds} rounds, then whatever is covered is returned.
+ * <p>
+ * {@code max-limit} caps the options per list, so a large limit cannot fan out into dozens of searches.
+ */
+@Component
+class TripPager {
+
+    private final int tripsPerSearch;
+    private final Duration slice;
+    private final int maxParallel;
+    private final int maxRounds;
+    private final int maxLimit;
+
+    TripPager(@Value("${chattender.fahrplan.paging.trips-per-search:6}") int tripsPerSearch,
+              @Value("${chattender.fahrplan.paging.slice:30m}") Duration slice,
+              @Value("${chattender.fahrplan.paging.max-parallel:4}") int maxParallel,
+              @Value("${chattender.fahrplan.paging.max-rounds:3}") int maxRounds,
+              @Value("${chattender.fahrplan.paging.max-limit:30}") int maxLimit) {
+        this.tripsPerSearch = Math.max(1, tripsPerSearch);
+        this.slice = slice;
+        this.maxParallel = Math.max(1, maxParallel);
+        this.maxRounds = Math.max(1, maxRounds);
+        this.maxLimit = Math.max(1, maxLimit);
+    }
+
+    /** Angefragte Anzahl Optionen, auf 1..max-limit begrenzt. */
+    int limit(int requested) {
+        return Math.min(maxLimit, Math.max(1, requested));
+    }
+
+    /**
+     * @param first  Optionen der normalen Einzelsuche ab from
+     * @param search Suche ab Zeitpunkt, liefert alle Optionen einer Antwort
+     * @return genau limit Optionen in Abfahrtsreihenfolge, weniger nur wenn der Fahrplan nicht mehr hergibt
+     */
+    Mono<List<TripOption>> page(OffsetDateTime from, int limit, List<TripOption> first,
+                                Function<OffsetDateTime, Mono<PlanResult>> search) {
+        Map<String, TripOption> collected = new LinkedHashMap<>();
+        Slice single = new Slice(from, first);
+        OffsetDateTime coveredUntil = merge(List.of(single), collected);
+        if (collected.size() >= limit || coveredUntil == null) {
+            return Mono.just(ordered(collected, limit));
+        }
+        return round(coveredUntil, narrowed(slice, single), limit, search, collected, 1);
+    }
+
+    private Mono<List<TripOption>> round(OffsetDateTime cursor, Duration width, int limit,
+                                         Function<OffsetDateTime, Mono<PlanResult>> search,
+                                         Map<String, TripOption> collected, int round) {
+        int slices = Math.max(1, ceilDiv(limit - collected.size(), tripsPerSearch));
+        return Flux.range(0, slices)
+                .flatMapSequential(i -> {
+                    OffsetDateTime start = cursor.plus(width.multipliedBy(i));
+                    return search.apply(start)
+                            .map(result -> new Slice(start, result.options()))
+                            .defaultIfEmpty(new Slice(start, List.of()));
+                }, maxParallel)
+                .collectList()
+                .flatMap(results -> {
+                    OffsetDateTime coveredUntil = merge(results, collected);
+                    boolean progressed = coveredUntil != null && coveredUntil.isAfter(cursor);
+                    if (collected.size() >= limit || !progressed || round >= maxRounds) {
+                        return Mono.just(ordered(collected, limit));
+                    }
+                    // HH:mm-Aufloesung: dieselbe Minute nochmals, Duplikate fallen im Merge weg.
+                    // Dichter Takt: die naechste Runde nimmt die Spanne, die eine Antwort tatsaechlich abdeckte
+                    return round(coveredUntil, narrowed(width, results.get(0)), limit, search, collected, round + 1);
+                });
+    }
+
+    /** Uebernimmt den lueckenlosen Teil der Slices und liefert dessen Ende (letzte abgedeckte Abfahrt). */
+    private static OffsetDateTime merge(List<Slice> slices, Map<String, TripOption> collected) {
+        OffsetDateTime coveredUntil = null;
+        for (Slice s : slices) {
+            if (coveredUntil != null && s.start().isAfter(coveredUntil)) break;   // Luecke
+            OffsetDateTime last = null;
+            for (TripOption option : s.options()) {
+                OffsetDateTime dep = departure(option);
+                if (dep == null) continue;
+                collected.putIfAbsent(key(option), option);
+                if (last == null || dep.isAfter(last)) last = dep;
+            }
+            if (last == null) break;
+            if (coveredUntil == null || last.isAfter(coveredUntil)) coveredUntil = last;
+        }
+        return coveredUntil;
+    }
+
+    private static Duration narrowed(Duration width, Slice first) {
+        OffsetDateTime last = first.options().stream()
+                .map(TripPager::departure)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        if (last == null) return width;
+        Duration span = Duration.between(first.start(), last);
+        return span.compareTo(Duration.ofMinutes(1)) > 0 && span.compareTo(width) < 0 ? span : width;
+    }
+
+    private static List<TripOption> ordered(Map<String, TripOption> collected, int limit) {
+        List<TripOption> sorted = new ArrayList<>(collected.values());
+        sorted.sort(Comparator.comparing(TripPager::departure));
+        return sorted.size() > limit ? List.copyOf(sorted.subList(0, limit)) : List.copyOf(sorted);
+    }
+
+    private static String key(TripOption option) {
+        return option.departureTime() + "|" + option.serviceLabel();
+    }
+
+    private static OffsetDateTime departure(TripOption option) {
+        if (option.departureTime() == null) return null;
+        try {
+            return OffsetDateTime.parse(option.departureTime());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+
+    private record Slice(OffsetDateTime start, List<TripOption> options) {}
+}
@@ -0,0 +1,52 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Short-lived cache of raw /v3/trips/by-origin-destination payloads.
+ * <p>
+ * Key is the {@link JourneyService.TripsRequest} itself: origin, destination, date, HH:mm bucket, forArrival
+ * and the additional upstream fields (limit, detail options).
+ * The payload is kept as received (bytes), so the bound is in real memory and {@code raw} stays byte-identical.
+ * Nothing parsed is cached: every hit is mapped again, which is cheap compared to the round trip.
+ * TTL stays short because of realtime data.
+ */
+@Component
+class TripSearchCache {
+
+    private final Cache<JourneyService.TripsRequest, byte[]> cache;
+
+    TripSearchCache(@Value("${chattender.fahrplan.trip-cache.ttl:30s}") Duration ttl,
+                    @Value("${chattender.fahrplan.trip-cache.max-size:64MB}") DataSize maxSize,
+                    MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((JourneyService.TripsRequest key, byte[] payload) -> payload.length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "trips");
+    }
+
+    /** @return cached payload or null */
+    byte[] get(JourneyService.TripsRequest request) {
+        return cache.getIfPresent(request);
+    }
+
+    /** Probe without touching the hit/miss statistics (cache=trips metrics), e.g. for prefetching. */
+    boolean contains(JourneyService.TripsRequest request) {
+        return cache.asMap().containsKey(request);
+    }
+
+    void put(JourneyService.TripsRequest request, byte[] payload) {
+        cache.put(request, payload);
+    }
+}
@@ -0,0 +1,82 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Additional /v3/trips body fields ({@code chattender.fahrplan.trips-request}).
+ * <p>
+ * {@code limit-param} names the body field for the number of trips wanted; the tool's limit goes there.
+ * {@code detail} holds comma separated {@code field=value} pairs that slim the response, e.g. no intermediate
+ * stop points (the mappers only read boarding and alighting stops). {@code raw} only gets the limit, it is meant
+ * to show the full response.
+ * <p>
+ * Both are empty by default (minimal body): field names and values depend on the journey-service API version and
+ * have to be taken from its spec or a recorded request before enabling. If the service then rejects a search with
+ * a 400 whose body names one of the fields, and the same search without them succeeds, {@link JourneyService}
+ * calls {@link #disable} and every later search goes out with the minimal body.
+ */
+@Slf4j
+@Component
+class TripsRequestOptions {
+
+    private final String limitParam;
+    private final Map<String, Object> detail;
+    private volatile boolean disabled;
+
+    TripsRequestOptions(@Value("${chattender.fahrplan.trips-request.limit-param:}") String limitParam,
+                        @Value("${chattender.fahrplan.trips-request.detail:}") String detail) {
+        this.limitParam = StringUtils.hasText(limitParam) ? limitParam.trim() : null;
+        this.detail = parse(detail);
+    }
+
+    /**
+     * @param limit gewuenschte Anzahl Trips, null = Backend-Default
+     * @param full  true fuer raw: keine Detail-Optionen
+     * @return zusaetzliche Body-Felder (unveraenderlich, Teil des Cache-Keys)
+     */
+    Map<String, Object> forSearch(Integer limit, boolean full) {
+        if (disabled || limitParam == null && (full || detail.isEmpty())) return Map.of();
+        Map<String, Object> out = new LinkedHashMap<>();
+        if (!full) out.putAll(detail);
+        if (limitParam != null && limit != null) out.put(limitParam, Math.max(1, limit));
+        return Map.copyOf(out);
+    }
+
+    /** Der Journey-Service kennt die Felder nicht: ab jetzt nur noch der minimale Body. */
+    void disable(Map<String, Object> rejected) {
+        if (disabled) return;
+        disabled = true;
+        log.warn("journey-service rejected the trips-request fields {}, sending the minimal body from now on;"
+                + " check chattender.fahrplan.trips-request against the API spec", rejected.keySet());
+    }
+
+    static Map<String, Object> parse(String detail) {
+        if (!StringUtils.hasText(detail)) return Map.of();
+        Map<String, Object> out = new LinkedHashMap<>();
+        for (String pair : StringUtils.commaDelimitedListToStringArray(detail)) {
+            if (!StringUtils.hasText(pair)) continue;
+            int eq = pair.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("chattender.fahrplan.trips-request.detail: expected field=value, got '" + pair.trim() + "'");
+            }
+            out.put(pair.substring(0, eq).trim(), value(pair.substring(eq + 1).trim()));
+        }
+        return Map.copyOf(out);
+    }
+
+    /** true/false und Ganzzahlen als JSON-Boolean bzw. -Zahl, alles andere als String (Enums). */
+    private static Object value(String raw) {
+        if ("true".equalsIgnoreCase(raw) || "false".equalsIgnoreCase(raw)) return Boolean.valueOf(raw);
+        try {
+            return Integer.valueOf(raw);
+        } catch (NumberFormatException e) {
+            return raw;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Timeouts, retries, concurrency limits and circuit breaking around the journey-service calls
+ * ({@code chattender.fahrplan.upstream}).
+ * <p>
+ * Every attempt gets {@code attempt-timeout}, under a tool {@link Deadline} at most its share of the time left
+ * (remaining time / attempts left), and goes through the {@link ConcurrencyLimiter} and the
+ * {@link CircuitBreaker} of its endpoint. Attempts above the adaptive in-flight limit fail fast, without retry.
+ * Retries use jittered exponential backoff: 429 and 503 always, idempotent GETs additionally on IO errors,
+ * timeouts, 502 and 504; no retry starts once the deadline has passed. What is left after the retries surfaces as
+ * {@link UpstreamUnavailableException}.
+ * <p>
+ * Metrics: {@code chattender.upstream.circuit.state} (0 closed, 1 open, 2 half-open),
+ * {@code chattender.upstream.circuit.rejected}, {@code chattender.upstream.retries},
+ * {@code chattender.upstream.limit}, {@code chattender.upstream.inflight} and {@code chattender.upstream.limit.rejected},
+ * all per endpoint.
+ */
+@Component
+class UpstreamGuard {
+
+    private final MeterRegistry registry;
+    private final Duration attemptTimeout;
+    private final int maxRetries;
+    private final Duration minBackoff;
+    private final double jitter;
+    private final int window;
+    private final int minCalls;
+    private final double failureRate;
+    private final Duration openFor;
+    private final int halfOpenCalls;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double limitSmoothing;
+    private final int rttWindow;
+    private final double limitBackoff;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    UpstreamGuard(MeterRegistry registry,
+                  @Value("${chattender.fahrplan.upstream.attempt-timeout:5s}") Duration attemptTimeout,
+                  @Value("${chattender.fahrplan.upstream.retry.max-retries:2}") int maxRetries,
+                  @Value("${chattender.fahrplan.upstream.retry.min-backoff:200ms}") Duration minBackoff,
+                  @Value("${chattender.fahrplan.upstream.retry.jitter:0.5}") double jitter,
+                  @Value("${chattender.fahrplan.upstream.circuit.window:20}") int window,
+                  @Value("${chattender.fahrplan.upstream.circuit.min-calls:10}") int minCalls,
+                  @Value("${chattender.fahrplan.upstream.circuit.failure-rate:0.5}") double failureRate,
+                  @Value("${chattender.fahrplan.upstream.circuit.open-for:30s}") Duration openFor,
+                  @Value("${chattender.fahrplan.upstream.circuit.half-open-calls:3}") int halfOpenCalls,
+                  @Value("${chattender.fahrplan.upstream.limit.initial:20}") int initialLimit,
+                  @Value("${chattender.fahrplan.upstream.limit.min:2}") int minLimit,
+                  @Value("${chattender.fahrplan.upstream.limit.max:50}") int maxLimit,
+                  @Value("${chattender.fahrplan.upstream.limit.rtt-tolerance:1.5}") double rttTolerance,
+                  @Value("${chattender.fahrplan.upstream.limit.smoothing:0.2}") double limitSmoothing,
+                  @Value("${chattender.fahrplan.upstream.limit.rtt-window:100}") int rttWindow,
+                  @Value("${chattender.fahrplan.upstream.limit.backoff:0.9}") double limitBackoff) {
+        this.registry = registry;
+        this.attemptTimeout = attemptTimeout;
+        this.maxRetries = maxRetries;
+        this.minBackoff = minBackoff;
+        this.jitter = jitter;
+        this.window = window;
+        this.minCalls = minCalls;
+        this.failureRate = failureRate;
+        this.openFor = openFor;
+        this.halfOpenCalls = halfOpenCalls;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.limitSmoothing = limitSmoothing;
+        this.rttWindow = rttWindow;
+        this.limitBackoff = limitBackoff;
+    }
+
+    /**
+     * @param endpoint   Name fuer Breaker und Metriken (places, trips)
+     * @param idempotent GET: auch IO-Fehler und Timeouts werden wiederholt
+     */
+    <T> Function<Mono<T>, Mono<T>> guard(String endpoint, boolean idempotent) {
+        CircuitBreaker breaker = breaker(endpoint);
+        ConcurrencyLimiter limiter = limiter(endpoint);
+        Counter rejected = Counter.builder("chattender.upstream.circuit.rejected").tag("endpoint", endpoint).register(registry);
+        Counter limited = Counter.builder("chattender.upstream.limit.rejected").tag("endpoint", endpoint).register(registry);
+        Counter retries = Counter.builder("chattender.upstream.retries").tag("endpoint", endpoint).register(registry);
+        return call -> Mono.deferContextual(ctx -> {
+            AtomicInteger attempt = new AtomicInteger();
+            return Mono.defer(() -> {
+                if (!limiter.tryAcquire()) {
+                    limited.increment();
+                    return Mono.error(new UpstreamUnavailableException(
+                            "The SBB journey-service is at capacity right now, please try again in a few seconds."));
+                }
+                if (!breaker.tryAcquire()) {
+                    limiter.onIgnored();
+                    rejected.increment();
+                    return Mono.error(new UpstreamUnavailableException(
+                            "The SBB journey-service is currently unavailable, please try again in "
+                                    + Math.max(1, breaker.retryIn().toSeconds()) + "s."));
+                }
+                long start = System.nanoTime();
+                int attemptsLeft = maxRetries + 1 - attempt.getAndIncrement();
+                return call.timeout(attemptTimeout(attemptTimeout, Deadline.remainingNanos(ctx), attemptsLeft))
+                        .doOnSuccess(v -> {
+                            breaker.onSuccess();
+                            limiter.onSuccess(System.nanoTime() - start);
+                        })
+                        .doOnError(e -> {
+                            if (unhealthy(e)) breaker.onFailure();
+                            else breaker.onIgnored();
+                            if (overloaded(e)) limiter.onDropped();
+                            else limiter.onIgnored();
+                        })
+                        .doOnCancel(() -> {
+                            breaker.onIgnored();
+                            limiter.onIgnored();
+                        });
+            })
+                    .retryWhen(Retry.backoff(maxRetries, minBackoff)
+                            .jitter(jitter)
+                            .filter(e -> retryable(e, idempotent) && Deadline.remainingNanos(ctx) > minBackoff.toNanos())
+                            .doBeforeRetry(signal -> retries.increment())
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                    .onErrorMap(UpstreamGuard::unavailable,
+                            e -> new UpstreamUnavailableException(
+                                    "The SBB journey-service did not answer (" + reason(e) + "), please try again later.", e));
+        });
+    }
+
+    CircuitBreaker breaker(String endpoint) {
+        return breakers.computeIfAbsent(endpoint, name -> {
+            var breaker = new CircuitBreaker(window, minCalls, failureRate, openFor, halfOpenCalls, Clock.systemUTC());
+            Gauge.builder("chattender.upstream.circuit.state", breaker, b -> b.state().ordinal())
+                    .description("0 closed, 1 open, 2 half-open")
+                    .tag("endpoint", name)
+                    .register(registry);
+            return breaker;
+        });
+    }
+
+    ConcurrencyLimiter limiter(String endpoint) {
+        return limiters.computeIfAbsent(endpoint, name -> {
+            var limiter = new ConcurrencyLimiter(initialLimit, minLimit, maxLimit, rttTolerance, limitSmoothing,
+                    rttWindow, limitBackoff);
+            Gauge.builder("chattender.upstream.limit", limiter, ConcurrencyLimiter::limit)
+                    .description("adaptive in-flight limit")
+                    .tag("endpoint", name)
+                    .register(registry);
+            Gauge.builder("chattender.upstream.inflight", limiter, ConcurrencyLimiter::inFlight)
+                    .description("attempts in flight")
+                    .tag("endpoint", name)
+                    .register(registry);
+            return limiter;
+        });
+    }
+
+    /**
+     * Timeout eines Versuchs: attempt-timeout, unter einer Deadline hoechstens der gleichmaessige Anteil der
+     * Restzeit, damit auch die Retries noch hineinpassen.
+     */
+    static Duration attemptTimeout(Duration attemptTimeout, long remainingNanos, int attemptsLeft) {
+        if (remainingNanos == Long.MAX_VALUE) return attemptTimeout;
+        long share = Math.max(1, remainingNanos / Math.max(1, attemptsLeft));
+        return share < attemptTimeout.toNanos() ? Duration.ofNanos(share) : attemptTimeout;
+    }
+
+    static boolean retryable(Throwable e, boolean idempotent) {
+        if (e instanceof WebClientResponseException w) {
+            int status = w.getStatusCode().value();
+            if (status == 429 || status == 503) return true;
+            return idempotent && (status == 502 || status == 504);
+        }
+        return idempotent && (e instanceof TimeoutException || e instanceof WebClientRequestException);
+    }
+
+    /** Fehler, die etwas ueber die Gesundheit des Upstreams aussagen (zaehlen fuer den Breaker). */
+    static boolean unhealthy(Throwable e) {
+        if (e instanceof WebClientResponseException w) return w.getStatusCode().is5xxServerError();
+        return e instanceof TimeoutException || e instanceof WebClientRequestException;
+    }
+
+    /** Ueberlast-Signale, die das Limit senken (Timeout, 429, 503, Pool voll bzw. Verbindungsfehler). */
+    static boolean overloaded(Throwable e) {
+        if (e instanceof WebClientResponseException w) {
+            int status = w.getStatusCode().value();
+            return status == 429 || status == 503;
+        }
+        return e instanceof TimeoutException || e instanceof WebClientRequestException;
+    }
+
+    /** Was nach den Retries uebrig bleibt und als {@link UpstreamUnavailableException} an das Tool geht. */
+    static boolean unavailable(Throwable e) {
+        if (e instanceof WebClientResponseException w) return w.getStatusCode().is5xxServerError() || w.getStatusCode().value() == 429;
+        return e instanceof TimeoutException || e instanceof WebClientRequestException;
+    }
+
+    private static String reason(Throwable e) {
+        if (e instanceof WebClientResponseException w) return "HTTP " + w.getStatusCode().value();
+        if (e instanceof TimeoutException) return "timeout";
+        return "connection error";
+    }
+}
@@ -0,0 +1,16 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+/**
+ * The journey-service did not answer usably within the limits (timeout, 5xx/429 after retries, circuit open,
+ * tool deadline). The message goes back to the LLM as tool error, so it is phrased for the user.
+ */
+public class UpstreamUnavailableException extends IllegalStateException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+
+    public UpstreamUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
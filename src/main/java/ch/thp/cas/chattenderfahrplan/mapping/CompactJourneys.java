@@ -0,0 +1,50 @@
+package ch.thp.cas.chattenderfahrplan.mapping;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact tabular encoding of a journey list ({@code format=compact}).
+ * <p>
+ * One row per connection, fields separated by '|' in the order of {@link #COLUMNS}. Operator, direction and
+ * station names are listed once in {@code names} and referenced by their index; empty fields stay empty
+ * (no "-" like {@link FlatMapper}), trailing empty fields are dropped.
+ */
+public record CompactJourneys(String columns, List<String> names, List<String> rows) {
+
+    public static final String COLUMNS = "dep|arr|service|operator#|fromQuay|toQuay|dir#|from#|to#";
+
+    public static CompactJourneys of(List<FlatPlan> plans) {
+        Map<String, Integer> names = new LinkedHashMap<>();
+        List<String> rows = new ArrayList<>();
+        for (FlatPlan plan : plans) {
+            for (FlatTrip t : plan.options()) {
+                rows.add(row(
+                        value(t.dep()), value(t.arr()), value(t.service()), ref(names, t.operator()),
+                        value(t.fromQuay()), value(t.toQuay()), ref(names, t.dir()),
+                        ref(names, t.from()), ref(names, t.to())));
+            }
+        }
+        return new CompactJourneys(COLUMNS, List.copyOf(names.keySet()), List.copyOf(rows));
+    }
+
+    private static String row(String... fields) {
+        int last = fields.length;
+        while (last > 0 && fields[last - 1].isEmpty()) last--;
+        return String.join("|", List.of(fields).subList(0, last));
+    }
+
+    private static String ref(Map<String, Integer> names, String name) {
+        String v = value(name);
+        if (v.isEmpty()) return v;
+        return String.valueOf(names.computeIfAbsent(v, k -> names.size()));
+    }
+
+    /** "-" und leer von FlatMapper.nz werden wieder leer; '|' ist Trennzeichen. */
+    private static String value(String s) {
+        if (s == null || s.isBlank() || "-".equals(s)) return "";
+        return s.replace('|', '/');
+    }
+}
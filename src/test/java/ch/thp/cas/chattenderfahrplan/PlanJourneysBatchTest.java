@@ -0,0 +1,110 @@
+package ch.thp.cas.chattenderfahrplan;
+
+import ch.thp.cas.chattenderfahrplan.TimetableTool.BatchEntry;
+import ch.thp.cas.chattenderfahrplan.TimetableTool.JourneyQuery;
+import ch.thp.cas.chattenderfahrplan.infrastructure.JourneyMetrics;
+import ch.thp.cas.chattenderfahrplan.journeyservice.HotRoutes;
+import ch.thp.cas.chattenderfahrplan.journeyservice.JourneyService;
+import ch.thp.cas.chattenderfahrplan.journeyservice.PlacesResolver;
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult;
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult.TripOption;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PlanJourneysBatchTest {
+
+    private static final Map<String, String> STATIONS = Map.of(
+            "Bern", "8507000", "Zuerich HB", "8503000", "Basel SBB", "8500010");
+
+    private final JourneyService journeys = mock(JourneyService.class);
+    private final PlacesResolver places = mock(PlacesResolver.class);
+    private final TimetableTool tool = new TimetableTool(journeys, places, mock(HotRoutes.class),
+            new JourneyMetrics(new SimpleMeterRegistry()), Duration.ofSeconds(15), 0.4,
+            "json", 3, 4);
+
+    @BeforeEach
+    void stubs() {
+        when(places.resolveStopPlaceIdAsync(anyString())).thenAnswer(inv -> {
+            String name = inv.getArgument(0);
+            if ("Leer".equals(name)) return Mono.empty();
+            String id = STATIONS.get(name);
+            return id != null ? Mono.just(id) : Mono.error(new IllegalArgumentException("No StopPlace for: " + name));
+        });
+        // Basel antwortet langsamer als Zuerich
+        when(journeys.planItinerary(anyString(), anyString(), any(OffsetDateTime.class))).thenAnswer(inv -> {
+            String destination = inv.getArgument(1);
+            Mono<PlanResult> plan = Mono.just(plan(destination));
+            return "8500010".equals(destination) ? plan.delayElement(Duration.ofMillis(100)) : plan;
+        });
+    }
+
+    @Test
+    void entryErrorsDoNotFailTheBatch() {
+        var results = batch(
+                new JourneyQuery("Bern", "Zuerich HB", null),
+                new JourneyQuery("Bern", "Atlantis", null),
+                new JourneyQuery("Leer", "Bern", null),
+                new JourneyQuery("Bern", null, null));
+
+        assertThat(results.get(0).journey()).isEqualTo(plan("8503000"));
+        assertThat(results.get(1).error()).isEqualTo("No StopPlace for: Atlantis");
+        assertThat(results.get(2).error()).isEqualTo("No StopPlace for: Leer");
+        assertThat(results.get(3).error()).isEqualTo("origin and destination are required");
+        assertThat(results.subList(1, 4)).extracting(BatchEntry::journey).containsOnlyNulls();
+    }
+
+    @Test
+    void resultsKeepTheRequestOrder() {
+        var results = batch(
+                new JourneyQuery("Bern", "Basel SBB", null),
+                new JourneyQuery("Bern", "Zuerich HB", null));
+
+        assertThat(results).extracting(BatchEntry::destination).containsExactly("Basel SBB", "Zuerich HB");
+        assertThat(results).extracting(BatchEntry::journey).containsExactly(plan("8500010"), plan("8503000"));
+    }
+
+    @Test
+    void repeatedNamesAreResolvedOnce() {
+        batch(new JourneyQuery("Bern", "Zuerich HB", null),
+                new JourneyQuery("Bern", "Basel SBB", null),
+                new JourneyQuery("Zuerich HB", "Bern", null));
+
+        verify(places, times(1)).resolveStopPlaceIdAsync("Bern");
+        verify(places, times(1)).resolveStopPlaceIdAsync("Zuerich HB");
+    }
+
+    @Test
+    void rejectsMoreThanMaxEntries() {
+        var queries = Collections.nCopies(4, new JourneyQuery("Bern", "Zuerich HB", null));
+
+        assertThatThrownBy(() -> tool.planJourneysBatchAsync(queries, "de").block())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("At most 3 entries");
+    }
+
+    private List<BatchEntry> batch(JourneyQuery... queries) {
+        return tool.planJourneysBatchAsync(List.of(queries), "de").block().results();
+    }
+
+    private static PlanResult plan(String destinationId) {
+        return PlanResult.of(List.of(new TripOption("2025-11-11T14:02:00+01:00", "2025-11-11T14:58:00+01:00",
+                "IC 1", "SBB", "7", "31", destinationId, "8507000", destinationId)));
+    }
+}
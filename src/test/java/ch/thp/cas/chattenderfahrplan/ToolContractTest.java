@@ -0,0 +1,62 @@
+package ch.thp.cas.chattenderfahrplan;
+
+import org.junit.jupiter.api.Test;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MCP_SERVER_TYPE darf den Tool-Vertrag nicht aendern: ASYNC deklariert dieselben Tools, Parameter und
+ * Resultattypen wie SYNC.
+ */
+class ToolContractTest {
+
+    record Param(Type type, String description, boolean required) {}
+
+    record Contract(String description, List<Param> params, Type result) {}
+
+    @Test
+    void asyncToolsDeclareTheSyncContract() {
+        Map<String, Contract> sync = Arrays.stream(TimetableTool.class.getMethods())
+                .filter(m -> m.isAnnotationPresent(Tool.class))
+                .collect(Collectors.toMap(m -> m.getAnnotation(Tool.class).name(), ToolContractTest::syncContract));
+        Map<String, Contract> async = Arrays.stream(AsyncTimetableTool.class.getMethods())
+                .filter(m -> m.isAnnotationPresent(McpTool.class))
+                .collect(Collectors.toMap(m -> m.getAnnotation(McpTool.class).name(), ToolContractTest::asyncContract));
+
+        assertThat(async).isEqualTo(sync);
+    }
+
+    private static Contract syncContract(Method m) {
+        List<Param> params = Arrays.stream(m.getParameters())
+                .map(p -> {
+                    ToolParam a = p.getAnnotation(ToolParam.class);
+                    return new Param(p.getParameterizedType(), a.description(), a.required());
+                })
+                .toList();
+        return new Contract(m.getAnnotation(Tool.class).description(), params, m.getGenericReturnType());
+    }
+
+    private static Contract asyncContract(Method m) {
+        List<Param> params = Arrays.stream(m.getParameters())
+                .map(p -> {
+                    McpToolParam a = p.getAnnotation(McpToolParam.class);
+                    return new Param(p.getParameterizedType(), a.description(), a.required());
+                })
+                .toList();
+        // Mono<T> -> T
+        Type result = ((ParameterizedType) m.getGenericReturnType()).getActualTypeArguments()[0];
+        return new Contract(m.getAnnotation(McpTool.class).description(), params, result);
+    }
+}
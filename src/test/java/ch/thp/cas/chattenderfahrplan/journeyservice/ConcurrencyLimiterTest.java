@@ -0,0 +1,71 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimiterTest {
+
+    private static final long RTT = Duration.ofMillis(200).toNanos();
+
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 2, 50, 1.5, 0.2, 100, 0.9);
+
+    @Test
+    void rejectsAboveTheLimit() {
+        fill(10);
+
+        assertThat(limiter.tryAcquire()).isFalse();
+        limiter.onIgnored();
+        assertThat(limiter.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void growsWhileSaturatedWithStableLatency() {
+        for (int i = 0; i < 20; i++) {
+            fill(limiter.limit());
+            drain(RTT);
+        }
+
+        assertThat(limiter.limit()).isGreaterThan(20);
+    }
+
+    @Test
+    void shrinksWhenLatencyInflates() {
+        for (int i = 0; i < 5; i++) {
+            fill(limiter.limit());
+            drain(RTT);
+        }
+        int before = limiter.limit();
+
+        for (int i = 0; i < 5; i++) {
+            fill(limiter.limit());
+            drain(RTT * 4);
+        }
+
+        assertThat(limiter.limit()).isLessThan(before);
+    }
+
+    @Test
+    void learnsNothingUnderLowLoadButBacksOffOnDrops() {
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            limiter.onSuccess(RTT);
+        }
+        assertThat(limiter.limit()).isEqualTo(10);
+
+        limiter.tryAcquire();
+        limiter.onDropped();
+        assertThat(limiter.limit()).isEqualTo(9);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    private void fill(int calls) {
+        for (int i = 0; i < calls; i++) limiter.tryAcquire();
+    }
+
+    private void drain(long rtt) {
+        while (limiter.inFlight() > 0) limiter.onSuccess(rtt);
+    }
+}
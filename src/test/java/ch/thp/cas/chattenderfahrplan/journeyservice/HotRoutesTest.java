@@ -0,0 +1,46 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotRoutesTest {
+
+    @Test
+    void ranksRoutesByCount() {
+        var routes = new HotRoutes(8);
+        record(routes, "8507000", "8503000", 20);
+        record(routes, "8503000", "8503016", 10);
+        record(routes, "8500010", "8505000", 2);
+
+        assertThat(routes.top(2, 3)).containsExactly(
+                new HotRoutes.Route("8507000", "8503000"),
+                new HotRoutes.Route("8503000", "8503016"));
+    }
+
+    @Test
+    void staysBoundedUnderManyDistinctRoutes() {
+        var routes = new HotRoutes(4);
+        record(routes, "8507000", "8503000", 50);
+        for (int i = 0; i < 1000; i++) {
+            routes.record("85" + i, "86" + i);
+        }
+
+        assertThat(routes.top(100, 1)).hasSizeLessThanOrEqualTo(8);
+        assertThat(routes.top(1, 1)).containsExactly(new HotRoutes.Route("8507000", "8503000"));
+    }
+
+    @Test
+    void decayHalvesCounts() {
+        var routes = new HotRoutes(8);
+        record(routes, "8507000", "8503000", 4);
+
+        routes.decay();
+        assertThat(routes.top(1, 3)).isEmpty();
+        assertThat(routes.top(1, 2)).hasSize(1);
+    }
+
+    private static void record(HotRoutes routes, String origin, String destination, int times) {
+        for (int i = 0; i < times; i++) routes.record(origin, destination);
+    }
+}
@@ -0,0 +1,97 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JourneyHttpClientConfigTest {
+
+    private final JourneyHttpClientConfig config = new JourneyHttpClientConfig();
+    private final AtomicInteger heads = new AtomicInteger();
+    private ConnectionProvider pool;
+    private DisposableServer server;
+
+    @BeforeEach
+    void start() {
+        pool = config.journeyConnectionProvider(5, 10, Duration.ofSeconds(1), Duration.ofSeconds(30), Duration.ofMinutes(5));
+        server = HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/encoding", (req, res) -> res.sendString(
+                                Mono.just(String.valueOf(req.requestHeaders().get("Accept-Encoding")))))
+                        .head("/", (req, res) -> {
+                            heads.incrementAndGet();
+                            return res.send();
+                        }))
+                .bindNow();
+    }
+
+    @AfterEach
+    void stop() {
+        server.disposeNow();
+        pool.dispose();
+    }
+
+    @Test
+    void poolIsNamedAndBounded() {
+        assertThat(pool.name()).isEqualTo(JourneyHttpClientConfig.POOL_NAME);
+        assertThat(pool.maxConnections()).isEqualTo(5);
+    }
+
+    @Test
+    void http2IsOfferedOnlyWhenEnabled() {
+        assertThat(config.journeyHttpClient(pool, true, true).configuration().protocols())
+                .containsExactlyInAnyOrder(HttpProtocol.H2, HttpProtocol.HTTP11);
+        assertThat(config.journeyHttpClient(pool, false, true).configuration().protocols())
+                .containsExactly(HttpProtocol.HTTP11);
+    }
+
+    @Test
+    void compressionAsksForGzipAndPlainHttpStaysOnHttp11() {
+        String acceptEncoding = config.journeyHttpClient(pool, true, true)
+                .get().uri(baseUrl() + "/encoding")
+                .responseContent().aggregate().asString()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(acceptEncoding).contains("gzip");
+    }
+
+    @Test
+    void warmupOpensTheConfiguredConnections() throws Exception {
+        var client = config.journeyHttpClient(pool, false, true);
+
+        config.journeyConnectionWarmup(client, baseUrl() + "/", 2, Duration.ofSeconds(5)).run(null);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (heads.get() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(heads).hasValue(2);
+    }
+
+    @Test
+    void warmupToleratesAnUnreachableService() throws Exception {
+        var client = config.journeyHttpClient(pool, false, true);
+
+        // laeuft asynchron, der Start wartet nicht und scheitert nicht
+        config.journeyConnectionWarmup(client, "http://localhost:1/", 2, Duration.ofMillis(200)).run(null);
+        config.journeyConnectionWarmup(client, baseUrl() + "/", 0, Duration.ofSeconds(5)).run(null);
+
+        Thread.sleep(100);
+        assertThat(heads).hasValue(0);
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.port();
+    }
+}
@@ -0,0 +1,60 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import ch.thp.cas.chattenderfahrplan.infrastructure.JourneyMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * List calls with the streaming engine map options and held itineraries in one streaming pass, without a JsonNode
+ * tree; a follow-up nextJourney inside the listed window is served from the held list.
+ */
+class JourneyServiceListTest {
+
+    private static final OffsetDateTime FROM = OffsetDateTime.parse("2025-11-11T14:00:00+01:00");
+
+    private final ObjectMapper objectMapper = spy(new ObjectMapper());
+    private final TripSearchCache tripCache = mock(TripSearchCache.class);
+    private final WebClient client = mock(WebClient.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final JourneyService journeys = new JourneyService(client, tripCache, objectMapper,
+            new JourneyMetrics(registry), mock(UpstreamGuard.class), new TripPager(6, Duration.ofMinutes(30), 4, 3, 30),
+            new TripsRequestOptions("", ""), mock(PayloadBudget.class),
+            new RecentJourneyLists(registry, true, Duration.ofMinutes(2), 10), "streaming");
+
+    @BeforeEach
+    void cachedPayload() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/trips-bern-zuerich.json")) {
+            when(tripCache.get(any())).thenReturn(in.readAllBytes());
+        }
+    }
+
+    @Test
+    void listCallsDoNotBuildATree() throws Exception {
+        var plans = journeys.planFlatPlans("8507000", "8503000", FROM, 6).block();
+        String first = plans.get(0).options().get(0).dep();
+        var itinerary = journeys.planItinerary("8507000", "8503000", OffsetDateTime.parse(first)).block();
+
+        assertThat(plans).hasSize(6);
+        assertThat(itinerary.options()).isNotEmpty();
+        assertThat(itinerary.options().get(0).departureTime()).isEqualTo(first);
+        assertThat(registry.counter("chattender.recent-lists.itineraries").count()).isEqualTo(1);
+        verify(objectMapper, never()).readTree(any(byte[].class));
+        verifyNoInteractions(client);
+    }
+}
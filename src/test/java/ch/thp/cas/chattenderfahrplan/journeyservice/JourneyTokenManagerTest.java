@@ -0,0 +1,116 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.security.oauth2.client.endpoint.OAuth2ClientCredentialsGrantRequest;
+import org.springframework.security.oauth2.client.endpoint.ReactiveOAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AccessTokenResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JourneyTokenManagerTest {
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveOAuth2AccessTokenResponseClient<OAuth2ClientCredentialsGrantRequest> tokenClient =
+            mock(ReactiveOAuth2AccessTokenResponseClient.class);
+    private final ReactiveClientRegistrationRepository registrations = mock(ReactiveClientRegistrationRepository.class);
+    private JourneyTokenManager tokens;
+    private JourneyTokenHealthIndicator health;
+
+    @BeforeEach
+    void registration() {
+        when(registrations.findByRegistrationId(JourneyTokenManager.REGISTRATION_ID)).thenReturn(Mono.just(
+                ClientRegistration.withRegistrationId(JourneyTokenManager.REGISTRATION_ID)
+                        .clientId("chattender")
+                        .clientSecret("secret")
+                        .authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+                        .tokenUri("http://localhost/oauth2/v2.0/token")
+                        .build()));
+    }
+
+    @AfterEach
+    void stop() {
+        if (tokens != null) tokens.stop();
+    }
+
+    @Test
+    void notReadyBeforeTheFirstToken() {
+        manager(Duration.ofMinutes(5));
+
+        assertThat(health.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+    }
+
+    @Test
+    void tokenIsRefreshedBeforeItExpires() throws Exception {
+        when(tokenClient.getTokenResponse(any()))
+                .thenReturn(Mono.just(response("t1", 2)))
+                .thenReturn(Mono.just(response("t2", 3600)));
+        // refresh-before 1s: t1 (2s) wird nach etwa 1s ersetzt, waehrend es noch gilt
+        manager(Duration.ofSeconds(1));
+
+        tokens.start();
+        assertThat(tokens.valid().value()).isEqualTo("t1");
+        assertThat(health.health().getStatus()).isEqualTo(Status.UP);
+
+        // valid() holt selbst nichts: t2 kann nur vom geplanten Refresh stammen
+        await(() -> tokens.valid() != null && "t2".equals(tokens.valid().value()), Duration.ofMillis(1800));
+        assertThat(tokens.valid().value()).isEqualTo("t2");
+        verify(tokenClient, times(2)).getTokenResponse(any());
+    }
+
+    @Test
+    void readinessGoesDownOnceAFailedRefreshLeavesNoValidToken() throws Exception {
+        when(tokenClient.getTokenResponse(any()))
+                .thenReturn(Mono.just(response("t1", 1)))
+                .thenReturn(Mono.error(new IllegalStateException("token endpoint unavailable")));
+        // refresh at half the lifetime (~500ms), retry only after an hour
+        manager(Duration.ofMinutes(5));
+
+        tokens.start();
+        await(() -> tokens.lastFailure() != null, Duration.ofMillis(900));
+        // Refresh fehlgeschlagen, t1 gilt noch
+        assertThat(tokens.lastFailure()).hasMessage("token endpoint unavailable");
+        assertThat(health.health().getStatus()).isEqualTo(Status.UP);
+
+        await(() -> tokens.valid() == null, Duration.ofSeconds(2));
+        var down = health.health();
+        assertThat(down.getStatus()).isEqualTo(Status.DOWN);
+        assertThat(down.getDetails()).containsEntry("token", "none").containsKey("error");
+    }
+
+    private void manager(Duration refreshBefore) {
+        tokens = new JourneyTokenManager(registrations, tokenClient, new SimpleMeterRegistry(), refreshBefore,
+                Duration.ofHours(1), Duration.ofMillis(100));
+        health = new JourneyTokenHealthIndicator(tokens);
+    }
+
+    private static OAuth2AccessTokenResponse response(String value, long expiresInSeconds) {
+        return OAuth2AccessTokenResponse.withToken(value)
+                .tokenType(OAuth2AccessToken.TokenType.BEARER)
+                .expiresIn(expiresInSeconds)
+                .build();
+    }
+
+    private static void await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
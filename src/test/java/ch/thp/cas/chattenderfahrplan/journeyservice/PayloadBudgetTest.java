@@ -0,0 +1,60 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayloadBudgetTest {
+
+    // Budget fuer zwei volle Reservationen (5MB, solange kein Payload beobachtet wurde), eine Suche darf warten
+    private final PayloadBudget budget = new PayloadBudget(new SimpleMeterRegistry(), true,
+            DataSize.ofMegabytes(10), DataSize.ofKilobytes(256), 2.0, 1, Duration.ofSeconds(30),
+            DataSize.ofMegabytes(5));
+
+    @Test
+    void queuesWhenExhaustedAndAdmitsOnRelease() {
+        PayloadBudget.Permit first = budget.acquire().block();
+        budget.acquire().block();
+        assertThat(budget.used()).isEqualTo(DataSize.ofMegabytes(10).toBytes());
+
+        CompletableFuture<PayloadBudget.Permit> third = budget.acquire().toFuture();
+        assertThat(third).isNotDone();
+        assertThat(budget.queued()).isEqualTo(1);
+
+        first.release();
+        first.release();   // idempotent
+
+        assertThat(third).isCompleted();
+        assertThat(budget.queued()).isZero();
+        assertThat(budget.used()).isEqualTo(DataSize.ofMegabytes(10).toBytes());
+    }
+
+    @Test
+    void rejectsRetryablyWhenQueueIsFull() {
+        budget.acquire().block();
+        budget.acquire().block();
+        budget.acquire().toFuture();
+
+        assertThatThrownBy(() -> budget.acquire().block())
+                .isInstanceOf(UpstreamUnavailableException.class)
+                .hasMessageContaining("try again");
+    }
+
+    @Test
+    void reservationFollowsObservedPayloads() {
+        PayloadBudget.Permit permit = budget.acquire().block();
+        permit.resize(DataSize.ofKilobytes(400).toBytes());
+
+        assertThat(budget.used()).isEqualTo(DataSize.ofKilobytes(400).toBytes());
+        assertThat(budget.estimate()).isEqualTo(DataSize.ofKilobytes(800).toBytes());
+
+        permit.release();
+        assertThat(budget.used()).isZero();
+    }
+}
@@ -0,0 +1,68 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import ch.thp.cas.chattenderfahrplan.infrastructure.JourneyMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class PlaceCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void spellingsOfOneStationShareAKey() {
+        assertThat(StationNames.normalize("Zürich HB"))
+                .isEqualTo(StationNames.normalize("zuerich  hb"))
+                .isEqualTo(StationNames.normalize(" ZUERICH-HB "))
+                .isEqualTo("zuerich hb");
+        assertThat(StationNames.normalize("Genève")).isEqualTo("geneve");
+        assertThat(StationNames.normalize("St. Gallen")).isEqualTo("st gallen");
+    }
+
+    @Test
+    void resolverServesEverySpellingFromOneEntry() {
+        var cache = new PlaceCache(100, Duration.ofHours(1), Duration.ofMinutes(1), registry);
+        cache.putFound("zuerich hb", "8503000");
+        cache.putMissing("atlantis");
+        WebClient client = mock(WebClient.class);
+        var resolver = new PlacesResolver(client, cache, mock(StationIndex.class), new JourneyMetrics(registry),
+                mock(UpstreamGuard.class));
+
+        assertThat(resolver.resolveStopPlaceId("Zürich HB")).isEqualTo("8503000");
+        assertThat(resolver.resolveStopPlaceId("ZUERICH  HB")).isEqualTo("8503000");
+        assertThatThrownBy(() -> resolver.resolveStopPlaceId("Atlantis"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("No StopPlace for: Atlantis");
+        verifyNoInteractions(client);
+    }
+
+    @Test
+    void missingNamesExpireAfterTheNegativeTtl() throws Exception {
+        var cache = new PlaceCache(100, Duration.ofHours(1), Duration.ofMillis(50), registry);
+        cache.putFound("bern", "8507000");
+        cache.putMissing("atlantis");
+
+        Thread.sleep(100);
+
+        assertThat(cache.get("atlantis")).isNull();
+        assertThat(cache.get("bern")).isEqualTo(new PlaceCache.Entry("8507000"));
+    }
+
+    @Test
+    void foundNamesExpireAfterTheTtl() throws Exception {
+        var cache = new PlaceCache(100, Duration.ofMillis(50), Duration.ofHours(1), registry);
+        cache.putFound("bern", "8507000");
+        assertThat(cache.get("bern").found()).isTrue();
+
+        Thread.sleep(100);
+
+        assertThat(cache.get("bern")).isNull();
+    }
+}
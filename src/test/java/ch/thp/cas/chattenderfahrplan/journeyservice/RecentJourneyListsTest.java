@@ -0,0 +1,55 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import ch.thp.cas.chattenderfahrplan.mapping.FlatPlan;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentJourneyListsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RecentJourneyLists lists = new RecentJourneyLists(new SimpleMeterRegistry(), true,
+            Duration.ofMinutes(2), 10);
+
+    private byte[] payload;
+    private List<FlatPlan> plans;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/trips-bern-zuerich.json")) {
+            payload = in.readAllBytes();
+        }
+        plans = JourneyMapper.toFlatPlans(objectMapper.readTree(payload), 6);
+        lists.hold("8507000", "8503000", dep(0), plans, StreamingJourneyMapper.toTrips(payload, 6).itineraries());
+    }
+
+    @Test
+    void derivesTheFirstHeldConnectionAtOrAfterTheAskedMinute() {
+        var itinerary = lists.itinerary("8507000", "8503000", dep(1).minusSeconds(30));
+
+        assertThat(itinerary).isNotNull();
+        assertThat(itinerary.options().get(0).departureTime()).isEqualTo(plans.get(1).options().get(0).dep());
+    }
+
+    @Test
+    void onlyServesMinutesInsideTheHeldWindow() {
+        OffsetDateTime last = dep(plans.size() - 1);
+
+        assertThat(lists.itinerary("8507000", "8503000", last)).isNotNull();
+        assertThat(lists.itinerary("8507000", "8503000", last.plusMinutes(1))).isNull();
+        assertThat(lists.itinerary("8507000", "8503000", dep(0).minusMinutes(1))).isNull();
+        assertThat(lists.itinerary("8503000", "8507000", dep(0))).isNull();
+    }
+
+    private OffsetDateTime dep(int index) {
+        return OffsetDateTime.parse(plans.get(index).options().get(0).dep());
+    }
+}
@@ -0,0 +1,86 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoutePrefetcherTest {
+
+    private final JourneyService journeys = mock(JourneyService.class);
+    private final HotRoutes routes = new HotRoutes(8);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void twoSearchesPerRoute() {
+        // wie JourneyService.prefetch: jede nicht gecachte Suche fragt admit, nur zugelassene werden abgesetzt
+        when(journeys.prefetch(anyString(), anyString(), any(OffsetDateTime.class), anyInt(), any()))
+                .thenAnswer(inv -> {
+                    BooleanSupplier admit = inv.getArgument(4);
+                    return Flux.range(0, 2).filter(i -> admit.getAsBoolean()).map(i -> true);
+                });
+    }
+
+    @Test
+    void searchesAreCappedByTheCallBudget() {
+        record("8507000", "8503000", 5);
+        record("8503000", "8503016", 4);
+        record("8500010", "8505000", 3);
+
+        // 6 calls per minute at a 30s interval: 3 searches per tick, out of at least 6 wanted
+        var prefetcher = prefetcher(6, Duration.ofMinutes(10));
+
+        assertThat(prefetcher.tick().block()).isEqualTo(3);
+        assertThat(count("fetched")).isEqualTo(3);
+        assertThat(count("budget")).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    void routesBelowMinCountAreNotPrefetched() {
+        record("8507000", "8503000", 3);
+        record("8500010", "8505000", 2);
+
+        prefetcher(60, Duration.ofMinutes(10)).tick().block();
+
+        verify(journeys, never()).prefetch(eq("8500010"), eq("8505000"), any(OffsetDateTime.class), anyInt(), any());
+    }
+
+    @Test
+    void countsDecayOncePerHalfLife() {
+        record("8507000", "8503000", 4);
+
+        assertThat(prefetcher(60, Duration.ofMinutes(10)).tick().block()).isPositive();
+        // half-life elapsed: 4 -> 2 searches, below min-count 3
+        assertThat(prefetcher(60, Duration.ZERO).tick().block()).isZero();
+        assertThat(routes.top(1, 2)).hasSize(1);
+    }
+
+    private RoutePrefetcher prefetcher(int callsPerMinute, Duration halfLife) {
+        return new RoutePrefetcher(journeys, routes, registry, Duration.ofSeconds(30), 20, 3, callsPerMinute, 6,
+                halfLife, 2);
+    }
+
+    private void record(String origin, String destination, int times) {
+        for (int i = 0; i < times; i++) {
+            routes.record(origin, destination);
+        }
+    }
+
+    private double count(String outcome) {
+        return registry.counter("chattender.prefetch.searches", "outcome", outcome).count();
+    }
+}
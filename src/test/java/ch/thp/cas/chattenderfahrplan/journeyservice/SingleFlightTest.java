@@ -0,0 +1,87 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+    private final AtomicInteger subscriptions = new AtomicInteger();
+    private final AtomicInteger cancellations = new AtomicInteger();
+
+    @Test
+    void concurrentCallersShareOneCall() {
+        Sinks.One<String> upstream = Sinks.one();
+        List<String> results = new CopyOnWriteArrayList<>();
+
+        flights.execute("bern", () -> call(upstream)).subscribe(results::add);
+        flights.execute("bern", () -> call(upstream)).subscribe(results::add);
+        assertThat(subscriptions).hasValue(1);
+        assertThat(flights.inFlight()).isEqualTo(1);
+
+        upstream.tryEmitValue("8507000");
+
+        assertThat(results).containsExactly("8507000", "8507000");
+        assertThat(flights.inFlight()).isZero();
+    }
+
+    @Test
+    void otherKeysGetTheirOwnCall() {
+        flights.execute("bern", () -> call(Sinks.one())).subscribe();
+        flights.execute("basel", () -> call(Sinks.one())).subscribe();
+
+        assertThat(subscriptions).hasValue(2);
+        assertThat(flights.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void failedCallIsRemovedAndNotHandedToLaterCallers() {
+        Sinks.One<String> failing = Sinks.one();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+        flights.execute("bern", () -> call(failing)).subscribe(v -> {}, errors::add);
+        flights.execute("bern", () -> call(failing)).subscribe(v -> {}, errors::add);
+        failing.tryEmitError(new IllegalStateException("502"));
+
+        assertThat(errors).hasSize(2);
+        assertThat(flights.inFlight()).isZero();
+        assertThat(flights.execute("bern", () -> call(Mono.just("8507000"))).block()).isEqualTo("8507000");
+        assertThat(subscriptions).hasValue(2);
+    }
+
+    @Test
+    void callIsCancelledAndRemovedOnceEveryCallerCancelled() {
+        Sinks.One<String> hanging = Sinks.one();
+
+        Disposable first = flights.execute("bern", () -> call(hanging)).subscribe();
+        Disposable second = flights.execute("bern", () -> call(hanging)).subscribe();
+
+        first.dispose();
+        assertThat(cancellations).hasValue(0);
+        assertThat(flights.inFlight()).isEqualTo(1);
+
+        second.dispose();
+        assertThat(cancellations).hasValue(1);
+        assertThat(flights.inFlight()).isZero();
+        assertThat(flights.execute("bern", () -> call(Mono.just("8507000"))).block()).isEqualTo("8507000");
+    }
+
+    private Mono<String> call(Sinks.One<String> upstream) {
+        return call(upstream.asMono());
+    }
+
+    private Mono<String> call(Mono<String> upstream) {
+        return Mono.defer(() -> {
+            subscriptions.incrementAndGet();
+            return upstream;
+        }).doOnCancel(cancellations::incrementAndGet);
+    }
+}
@@ -0,0 +1,59 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StationIndexTest {
+
+    private static final String STOPS = """
+            stop_id,stop_name,location_type,parent_station
+            Parent8503000,Zürich HB,1,
+            8503000:0:3,Zürich HB,0,Parent8503000
+            8501008,Genève,1,
+            8507000,Bern,1,
+            8507001,Bern Wankdorf,1,
+            8507492,Interlaken Ost,1,
+            8507493,Interlaken West,1,
+            """;
+
+    private StationIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        index = new StationIndex(new StringReader(STOPS), 0.8, 0.05);
+    }
+
+    @Test
+    void skipsPlatformsAndReducesIds() {
+        assertThat(index.size()).isEqualTo(6);
+        assertThat(index.lookup("Zürich HB")).contains("8503000");
+    }
+
+    @Test
+    void toleratesTransliteration() {
+        assertThat(index.lookup("Zuerich HB")).contains("8503000");
+        assertThat(index.lookup("zurich  hb")).contains("8503000");
+        assertThat(index.lookup("Geneve")).contains("8501008");
+    }
+
+    @Test
+    void prefersExactOverPrefix() {
+        assertThat(index.lookup("Bern")).contains("8507000");
+    }
+
+    @Test
+    void acceptsTyposWithClearLead() {
+        assertThat(index.lookup("Interlaken Ostt")).contains("8507492");
+    }
+
+    @Test
+    void leavesAmbiguousAndUnknownNamesToTheJourneyService() {
+        assertThat(index.lookup("Interlaken")).isEmpty();
+        assertThat(index.lookup("Paris Gare de Lyon")).isEmpty();
+        assertThat(index.lookup("  ")).isEmpty();
+    }
+}
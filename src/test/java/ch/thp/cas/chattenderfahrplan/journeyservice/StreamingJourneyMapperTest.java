@@ -0,0 +1,77 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The streaming engine must map exactly like the JsonNode based {@link JourneyMapper}.
+ */
+class StreamingJourneyMapperTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private byte[] payload;
+    private JsonNode tree;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/trips-bern-zuerich.json")) {
+            payload = in.readAllBytes();
+        }
+        tree = objectMapper.readTree(payload);
+    }
+
+    @Test
+    void itineraryMatchesTreeMapper() {
+        var streamed = StreamingJourneyMapper.toPlanResultItinerary(payload);
+
+        assertThat(streamed).isEqualTo(JourneyMapper.toPlanResultItinerary(tree));
+        assertThat(streamed.options()).isNotEmpty();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3, 6, 20})
+    void optionsMatchTreeMapper(int maxOptions) {
+        assertThat(StreamingJourneyMapper.toPlanResultOptions(payload, maxOptions))
+                .isEqualTo(JourneyMapper.toPlanResultOptions(tree, maxOptions));
+    }
+
+    @Test
+    void tripItinerariesMatchTreeMapper() {
+        var trips = StreamingJourneyMapper.toTrips(payload, 0);
+
+        assertThat(trips.options()).isEqualTo(JourneyMapper.toPlanResultOptions(tree, 0));
+        assertThat(trips.itineraries()).isEqualTo(JourneyMapper.toItineraries(tree));
+        assertThat(trips.itineraries().get(0)).isEqualTo(JourneyMapper.toPlanResultItinerary(tree));
+    }
+
+    @Test
+    void flatPlansMatchTreeMapper() {
+        assertThat(StreamingJourneyMapper.toFlatPlans(payload, 6))
+                .isEqualTo(JourneyMapper.toFlatPlans(tree, 6));
+    }
+
+    @Test
+    void emptyPayloadsMapToEmptyResults() {
+        assertThat(StreamingJourneyMapper.toPlanResultItinerary(new byte[0]).options()).isEmpty();
+        assertThat(StreamingJourneyMapper.toPlanResultOptions("{\"trips\":[]}".getBytes(), 6).options()).isEmpty();
+    }
+
+    @Test
+    void unknownMappingEngineIsRejected() {
+        assertThat(JourneyService.streaming("streaming")).isTrue();
+        assertThat(JourneyService.streaming(" Tree ")).isFalse();
+        assertThatThrownBy(() -> JourneyService.streaming("tre"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("tre");
+    }
+}
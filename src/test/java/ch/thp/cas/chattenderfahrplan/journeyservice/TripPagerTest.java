@@ -0,0 +1,105 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult;
+import ch.thp.cas.chattenderfahrplan.mapping.PlanResult.TripOption;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TripPagerTest {
+
+    private static final OffsetDateTime FROM = OffsetDateTime.parse("2025-11-11T14:00:00+01:00");
+
+    private final TripPager pager = new TripPager(5, Duration.ofMinutes(30), 4, 3, 30);
+    private final AtomicInteger searches = new AtomicInteger();
+
+    @Test
+    void returnsExactlyLimitInOrderWithoutDuplicates() {
+        var options = page(12, timetable(Duration.ofMinutes(10)));
+
+        assertThat(options).hasSize(12);
+        assertThat(options).extracting(TripOption::departureTime).doesNotHaveDuplicates().isSorted();
+        assertThat(options.get(0).departureTime()).isEqualTo(FROM.toString());
+        assertThat(options.get(11).departureTime()).isEqualTo(FROM.plusMinutes(110).toString());
+    }
+
+    @Test
+    void closesGapsOnDenseRoutes() {
+        var options = page(12, timetable(Duration.ofMinutes(2)));
+
+        assertThat(options).extracting(TripOption::departureTime)
+                .containsExactlyElementsOf(departures(Duration.ofMinutes(2), 12));
+    }
+
+    @Test
+    void pagesOnlyTheShortfallOfTheSingleSearch() {
+        page(7, timetable(Duration.ofMinutes(10)));
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void doesNotPageWhenTheSingleSearchSuffices() {
+        var first = List.of(trip(FROM), trip(FROM.plusMinutes(10)));
+
+        assertThat(pager.page(FROM, 2, first, timetable(Duration.ofMinutes(10))).block()).hasSize(2);
+        assertThat(searches).hasValue(0);
+    }
+
+    @Test
+    void stopsWhenTheTimetableRunsOut() {
+        Function<OffsetDateTime, Mono<PlanResult>> empty = start -> {
+            searches.incrementAndGet();
+            return Mono.just(PlanResult.of(List.of()));
+        };
+
+        assertThat(pager.page(FROM, 12, List.of(trip(FROM)), empty).block()).hasSize(1);
+        assertThat(searches).hasValue(3);
+    }
+
+    @Test
+    void capsTheLimit() {
+        assertThat(pager.limit(200)).isEqualTo(30);
+        assertThat(pager.limit(0)).isEqualTo(1);
+        assertThat(pager.limit(12)).isEqualTo(12);
+    }
+
+    /** Einzelsuche ab FROM wie in {@link JourneyService#planFlatPlans}, dann Paging fuer den Fehlbetrag. */
+    private List<TripOption> page(int limit, Function<OffsetDateTime, Mono<PlanResult>> search) {
+        List<TripOption> first = search.apply(FROM).block().options();
+        return pager.page(FROM, limit, first, search).block();
+    }
+
+    /** 5 Abfahrten ab dem angefragten Zeitpunkt im festen Takt, wie eine /v3/trips-Antwort. */
+    private Function<OffsetDateTime, Mono<PlanResult>> timetable(Duration headway) {
+        return start -> {
+            searches.incrementAndGet();
+            long offset = Math.floorMod(Duration.between(FROM, start).toMinutes(), headway.toMinutes());
+            OffsetDateTime first = offset == 0 ? start : start.plusMinutes(headway.toMinutes() - offset);
+            List<TripOption> trips = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                trips.add(trip(first.plus(headway.multipliedBy(i))));
+            }
+            return Mono.just(PlanResult.of(trips));
+        };
+    }
+
+    private static List<String> departures(Duration headway, int count) {
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < count; i++) out.add(FROM.plus(headway.multipliedBy(i)).toString());
+        return out;
+    }
+
+    private static TripOption trip(OffsetDateTime departure) {
+        return new TripOption(departure.toString(), departure.plusMinutes(56).toString(), "IC 1", "SBB",
+                "7", "31", "Zürich HB", "Bern", "Zürich HB");
+    }
+}
@@ -0,0 +1,88 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import ch.thp.cas.chattenderfahrplan.infrastructure.JourneyMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class TripSearchCacheTest {
+
+    private static final JourneyService.TripsRequest BERN_ZUERICH_1400 = new JourneyService.TripsRequest(
+            "8507000", "8503000", "2025-11-11", "14:00", false, Map.of());
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void searchesWithinTheSameZurichMinuteShareAnEntry() throws Exception {
+        var cache = new TripSearchCache(Duration.ofMinutes(1), DataSize.ofMegabytes(1), registry);
+        cache.put(BERN_ZUERICH_1400, fixture());
+        WebClient client = mock(WebClient.class);
+        var journeys = new JourneyService(client, cache, new ObjectMapper(), new JourneyMetrics(registry),
+                mock(UpstreamGuard.class), new TripPager(6, Duration.ofMinutes(30), 4, 3, 30),
+                new TripsRequestOptions("", ""), mock(PayloadBudget.class),
+                new RecentJourneyLists(registry, false, Duration.ofMinutes(2), 10), "streaming");
+
+        // Sekunden fallen weg, die Zeit zaehlt in Europe/Zurich
+        journeys.planItinerary("8507000", "8503000", OffsetDateTime.parse("2025-11-11T14:00:37+01:00")).block();
+        journeys.planItinerary("8507000", "8503000", OffsetDateTime.parse("2025-11-11T13:00:05Z")).block();
+
+        assertThat(gets("hit")).isEqualTo(2);
+        verifyNoInteractions(client);
+    }
+
+    @Test
+    void keyIncludesTheUpstreamFields() {
+        var cache = new TripSearchCache(Duration.ofMinutes(1), DataSize.ofMegabytes(1), registry);
+        cache.put(BERN_ZUERICH_1400, new byte[]{1});
+
+        var withLimit = new JourneyService.TripsRequest("8507000", "8503000", "2025-11-11", "14:00", false,
+                Map.of("limit", 6));
+        assertThat(cache.get(withLimit)).isNull();
+        assertThat(cache.get(withLimit.minimal())).containsExactly(1);
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws Exception {
+        var cache = new TripSearchCache(Duration.ofMillis(50), DataSize.ofMegabytes(1), registry);
+        cache.put(BERN_ZUERICH_1400, new byte[]{1});
+        assertThat(cache.contains(BERN_ZUERICH_1400)).isTrue();
+
+        Thread.sleep(100);
+
+        assertThat(cache.contains(BERN_ZUERICH_1400)).isFalse();
+        assertThat(cache.get(BERN_ZUERICH_1400)).isNull();
+    }
+
+    @Test
+    void containsDoesNotCountAsHitOrMiss() {
+        var cache = new TripSearchCache(Duration.ofMinutes(1), DataSize.ofMegabytes(1), registry);
+        cache.put(BERN_ZUERICH_1400, new byte[]{1});
+
+        cache.contains(BERN_ZUERICH_1400);
+        cache.contains(new JourneyService.TripsRequest("8507000", "8503000", "2025-11-11", "14:01", false, Map.of()));
+
+        assertThat(gets("hit")).isZero();
+        assertThat(gets("miss")).isZero();
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets").tag("cache", "trips").tag("result", result).functionCounter().count();
+    }
+
+    private byte[] fixture() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/fixtures/trips-bern-zuerich.json")) {
+            return in.readAllBytes();
+        }
+    }
+}
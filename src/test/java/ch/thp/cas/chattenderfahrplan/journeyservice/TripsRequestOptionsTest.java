@@ -0,0 +1,82 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TripsRequestOptionsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void disabledByDefault() {
+        var options = new TripsRequestOptions("", "");
+
+        assertThat(options.forSearch(3, false)).isEmpty();
+        assertThat(options.forSearch(3, true)).isEmpty();
+    }
+
+    @Test
+    void limitAndDetailGoIntoTheBody() throws Exception {
+        var options = new TripsRequestOptions("maxTrips", "includeIntermediateStops=false, realtimeMode=OFF");
+        var request = new JourneyService.TripsRequest("8507000", "8503000", "2025-11-11", "14:00", false,
+                options.forSearch(3, false));
+
+        JsonNode body = objectMapper.readTree(objectMapper.writeValueAsBytes(request));
+
+        assertThat(body.path("origin").asText()).isEqualTo("8507000");
+        assertThat(body.path("maxTrips").asInt()).isEqualTo(3);
+        assertThat(body.path("includeIntermediateStops").isBoolean()).isTrue();
+        assertThat(body.path("realtimeMode").asText()).isEqualTo("OFF");
+        assertThat(body.has("upstream")).isFalse();
+    }
+
+    @Test
+    void rawKeepsTheFullResponse() {
+        var options = new TripsRequestOptions("maxTrips", "includeIntermediateStops=false");
+
+        assertThat(options.forSearch(6, true)).isEqualTo(Map.of("maxTrips", 6));
+    }
+
+    @Test
+    void disabledOptionsSendTheMinimalBody() {
+        var options = new TripsRequestOptions("numberOfResults", "includeIntermediateStops=NONE");
+
+        assertThat(options.forSearch(6, false)).containsEntry("numberOfResults", 6);
+        options.disable(options.forSearch(6, false));
+
+        assertThat(options.forSearch(6, false)).isEmpty();
+        assertThat(options.forSearch(6, true)).isEmpty();
+    }
+
+    @Test
+    void onlyABadRequestNamingAFieldCountsAsRejection() {
+        Map<String, Object> fields = Map.of("numberOfResults", 6);
+
+        assertThat(JourneyService.rejectsField(badRequest("{\"detail\":\"Unknown property 'numberOfResults'\"}"), fields))
+                .isTrue();
+        assertThat(JourneyService.rejectsField(badRequest("{\"detail\":\"Invalid origin\"}"), fields)).isFalse();
+        assertThat(JourneyService.rejectsField(
+                WebClientResponseException.create(500, "Error", HttpHeaders.EMPTY, "numberOfResults".getBytes(), null),
+                fields)).isFalse();
+    }
+
+    @Test
+    void rejectsMalformedDetail() {
+        assertThatThrownBy(() -> new TripsRequestOptions("", "includeIntermediateStops"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static WebClientResponseException badRequest(String body) {
+        return WebClientResponseException.create(400, "Bad Request", HttpHeaders.EMPTY,
+                body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+}
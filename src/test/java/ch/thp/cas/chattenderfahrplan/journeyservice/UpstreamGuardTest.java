@@ -0,0 +1,105 @@
+package ch.thp.cas.chattenderfahrplan.journeyservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamGuardTest {
+
+    private final UpstreamGuard guard = new UpstreamGuard(new SimpleMeterRegistry(), Duration.ofSeconds(5), 2,
+            Duration.ofMillis(1), 0.5, 20, 10, 0.5, Duration.ofSeconds(30), 3, 20, 2, 50, 1.5, 0.2, 100, 0.9);
+
+    @Test
+    void postIsNotRetriedOnIoErrorsOrTimeouts() {
+        assertThat(UpstreamGuard.retryable(ioError(), false)).isFalse();
+        assertThat(UpstreamGuard.retryable(new TimeoutException(), false)).isFalse();
+        assertThat(UpstreamGuard.retryable(status(502), false)).isFalse();
+        assertThat(UpstreamGuard.retryable(status(504), false)).isFalse();
+    }
+
+    @Test
+    void getIsRetriedOnIoErrorsTimeoutsAndGatewayErrors() {
+        assertThat(UpstreamGuard.retryable(ioError(), true)).isTrue();
+        assertThat(UpstreamGuard.retryable(new TimeoutException(), true)).isTrue();
+        assertThat(UpstreamGuard.retryable(status(502), true)).isTrue();
+        assertThat(UpstreamGuard.retryable(status(504), true)).isTrue();
+    }
+
+    @Test
+    void overloadIsRetriedForBoth() {
+        assertThat(UpstreamGuard.retryable(status(429), false)).isTrue();
+        assertThat(UpstreamGuard.retryable(status(503), false)).isTrue();
+        assertThat(UpstreamGuard.retryable(status(500), true)).isFalse();
+        assertThat(UpstreamGuard.retryable(status(404), true)).isFalse();
+    }
+
+    @Test
+    void getIsAttemptedAgainAfterBadGateway() {
+        assertThat(attempts(true, status(502))).isEqualTo(3);
+    }
+
+    @Test
+    void postIsAttemptedOnceAfterBadGateway() {
+        assertThat(attempts(false, status(502))).isEqualTo(1);
+    }
+
+    @Test
+    void attemptsShareTheRemainingDeadline() {
+        Duration configured = Duration.ofSeconds(5);
+        long sixSeconds = Duration.ofSeconds(6).toNanos();
+
+        assertThat(UpstreamGuard.attemptTimeout(configured, Long.MAX_VALUE, 3)).isEqualTo(configured);
+        assertThat(UpstreamGuard.attemptTimeout(configured, sixSeconds, 3)).isEqualTo(Duration.ofSeconds(2));
+        assertThat(UpstreamGuard.attemptTimeout(configured, sixSeconds, 1)).isEqualTo(configured);
+        assertThat(UpstreamGuard.attemptTimeout(configured, -1, 3)).isPositive();
+    }
+
+    @Test
+    void noRetryStartsAfterTheDeadline() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Mono.<String>error(status(503));
+        });
+
+        assertThatThrownBy(() -> call.transform(guard.guard("deadline", true))
+                .transform(Deadline.at(System.nanoTime()))
+                .block())
+                .isInstanceOf(UpstreamUnavailableException.class);
+        assertThat(subscriptions).hasValue(1);
+    }
+
+    private int attempts(boolean idempotent, Throwable error) {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Mono.error(error);
+        });
+
+        assertThatThrownBy(() -> call.transform(guard.guard(idempotent ? "get" : "post", idempotent)).block())
+                .isInstanceOf(UpstreamUnavailableException.class);
+        return subscriptions.get();
+    }
+
+    private static WebClientResponseException status(int status) {
+        return WebClientResponseException.create(status, "status " + status, HttpHeaders.EMPTY, new byte[0], null);
+    }
+
+    private static WebClientRequestException ioError() {
+        return new WebClientRequestException(new IOException("connection reset"), HttpMethod.GET,
+                URI.create("http://localhost/v3/places"), HttpHeaders.EMPTY);
+    }
+}
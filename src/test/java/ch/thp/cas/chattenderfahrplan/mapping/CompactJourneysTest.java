@@ -0,0 +1,41 @@
+package ch.thp.cas.chattenderfahrplan.mapping;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactJourneysTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<FlatPlan> plans = List.of(
+            plan("2025-11-11T14:02:00+01:00", "2025-11-11T14:58:00+01:00", "IC 1", "SBB", "7", "31", "St. Gallen"),
+            plan("2025-11-11T14:32:00+01:00", "2025-11-11T15:28:00+01:00", "IC 8", "SBB", "-", "-", "Romanshorn"));
+
+    @Test
+    void sharesNamesAndDropsEmptyFields() {
+        var compact = CompactJourneys.of(plans);
+
+        assertThat(compact.columns()).isEqualTo(CompactJourneys.COLUMNS);
+        assertThat(compact.names()).containsExactly("SBB", "St. Gallen", "Bern", "Zürich HB", "Romanshorn");
+        assertThat(compact.rows()).containsExactly(
+                "2025-11-11T14:02:00+01:00|2025-11-11T14:58:00+01:00|IC 1|0|7|31|1|2|3",
+                "2025-11-11T14:32:00+01:00|2025-11-11T15:28:00+01:00|IC 8|0|||4|2|3");
+    }
+
+    @Test
+    void smallerThanFlatPlans() throws Exception {
+        int json = objectMapper.writeValueAsBytes(plans).length;
+        int compact = objectMapper.writeValueAsBytes(CompactJourneys.of(plans)).length;
+
+        assertThat(compact).isLessThan(json);
+    }
+
+    private static FlatPlan plan(String dep, String arr, String service, String operator,
+                                 String fromQuay, String toQuay, String dir) {
+        return new FlatPlan(List.of(new FlatTrip(dep, arr, service, operator, fromQuay, toQuay, dir, "Bern", "Zürich HB")));
+    }
+}
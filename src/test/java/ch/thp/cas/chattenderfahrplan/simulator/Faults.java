@@ -0,0 +1,74 @@
+package ch.thp.cas.chattenderfahrplan.simulator;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * Latenz, Fehler und 429-Throttling fuer den Simulator.
+ * <p>
+ * Latenz ist log-normal verteilt und ueber Median und p99 parametriert (so wie man sie aus Messungen kennt);
+ * ist p99 nicht groesser als der Median, ist die Latenz fix. Throttling ist ein Token-Bucket in Requests/s.
+ */
+final class Faults {
+
+    private static final int[] ERROR_STATUSES = {500, 502, 503, 504};
+    /** z-Wert des 99. Perzentils der Standardnormalverteilung */
+    private static final double Z_99 = 2.3263;
+
+    private final long medianNanos;
+    private final double sigma;
+    private final double errorRate;
+    private final double throttleRps;
+    private final SplittableRandom random;
+
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    Faults(Duration latencyMedian, Duration latencyP99, double errorRate, double throttleRps, long seed) {
+        if (errorRate < 0 || errorRate > 1) throw new IllegalArgumentException("error-rate must be within [0,1]");
+        this.medianNanos = latencyMedian.toNanos();
+        this.sigma = latencyP99.compareTo(latencyMedian) > 0 && medianNanos > 0
+                ? Math.log((double) latencyP99.toNanos() / medianNanos) / Z_99
+                : 0;
+        this.errorRate = errorRate;
+        this.throttleRps = throttleRps;
+        this.tokens = Math.max(1, throttleRps);
+        this.random = new SplittableRandom(seed);
+    }
+
+    static Faults none() {
+        return new Faults(Duration.ZERO, Duration.ZERO, 0, 0, 0);
+    }
+
+    Duration nextLatency() {
+        if (medianNanos == 0) return Duration.ZERO;
+        double z = gaussian();
+        return Duration.ofNanos((long) (medianNanos * Math.exp(sigma * z)));
+    }
+
+    /** @return simulierter Fehlerstatus oder 0 */
+    synchronized int nextError() {
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            return ERROR_STATUSES[random.nextInt(ERROR_STATUSES.length)];
+        }
+        return 0;
+    }
+
+    /** @return true, wenn der Request ueber dem Rate-Limit liegt (-> 429) */
+    synchronized boolean throttled() {
+        if (throttleRps <= 0) return false;
+        long now = System.nanoTime();
+        tokens = Math.min(Math.max(1, throttleRps), tokens + (now - refilledAt) / 1e9 * throttleRps);
+        refilledAt = now;
+        if (tokens < 1) return true;
+        tokens -= 1;
+        return false;
+    }
+
+    private synchronized double gaussian() {
+        // Box-Muller, SplittableRandom hat kein nextGaussian
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+}
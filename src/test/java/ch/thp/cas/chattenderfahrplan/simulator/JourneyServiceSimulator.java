@@ -0,0 +1,337 @@
+package ch.thp.cas.chattenderfahrplan.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lokaler Ersatz fuer den journey-service (/v3/trips/by-origin-destination, /v3/places) und den OAuth-Token-Endpoint.
+ * <p>
+ * replay (Default): Antworten aus dem Fixture-Verzeichnis, sonst die gebuendelte Bern-Zuerich-Fixture bzw. ein
+ * synthetischer StopPlace; dazu Latenz, Fehlerrate, 429-Throttling und auf eine Groesse aufgeblasene Trips-Payloads.
+ * record ({@code --record=<base-url>}): leitet an den echten journey-service weiter (Authorization wird durchgereicht)
+ * und legt die 200er-Antworten als Fixtures ab. Beim Aufnehmen muss die App das echte token-uri verwenden.
+ * <p>
+ * Fixture-Namen: {@code trips-<origin>-<destination>.json}, {@code places-<nameMatch>.json}.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *   -Dexec.mainClass=ch.thp.cas.chattenderfahrplan.simulator.JourneyServiceSimulator \
+ *   -Dexec.args="--port=8089 --latency-median=250ms --latency-p99=2s --error-rate=0.02 --throttle-rps=20"
+ * </pre>
+ */
+@Slf4j
+public final class JourneyServiceSimulator implements AutoCloseable {
+
+    static final String TRIPS_PATH = "/v3/trips/by-origin-destination";
+    static final String PLACES_PATH = "/v3/places";
+    static final String DEFAULT_TRIPS = "/fixtures/trips-bern-zuerich.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final List<String> FORWARDED_HEADERS =
+            List.of("Authorization", "Accept", "Accept-Language", "Content-Type", "Request-ID");
+
+    /**
+     * @param fixtures     Verzeichnis fuer Replay bzw. Aufnahme, null = nur gebuendelte Fixtures
+     * @param record       Basis-URL des echten journey-service, null = replay
+     * @param payloadBytes Trips-Antworten werden durch Replizieren der Trips mindestens so gross gemacht, 0 = wie aufgenommen
+     */
+    public record Options(int port, Path fixtures, URI record, Duration latencyMedian, Duration latencyP99,
+                          double errorRate, double throttleRps, int payloadBytes, long tokenTtlSeconds, long seed) {
+
+        public static Options defaults() {
+            return new Options(8089, null, null, Duration.ZERO, Duration.ZERO, 0, 0, 0, 3599, 42);
+        }
+
+        /** {@code --key=value} Argumente, Dauern wie in application.yaml (250ms, 2s). */
+        public static Options parse(String... args) {
+            Map<String, String> a = new HashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --key=value, got: " + arg);
+                }
+                a.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+            Options d = defaults();
+            Options o = new Options(
+                    Integer.parseInt(a.getOrDefault("port", String.valueOf(d.port()))),
+                    a.containsKey("fixtures") ? Path.of(a.get("fixtures")) : null,
+                    a.containsKey("record") ? URI.create(a.get("record")) : null,
+                    duration(a.get("latency-median"), d.latencyMedian()),
+                    duration(a.get("latency-p99"), d.latencyP99()),
+                    Double.parseDouble(a.getOrDefault("error-rate", "0")),
+                    Double.parseDouble(a.getOrDefault("throttle-rps", "0")),
+                    Integer.parseInt(a.getOrDefault("payload-bytes", "0")),
+                    Long.parseLong(a.getOrDefault("token-ttl", String.valueOf(d.tokenTtlSeconds()))),
+                    Long.parseLong(a.getOrDefault("seed", String.valueOf(d.seed()))));
+            if (o.record() != null && o.fixtures() == null) {
+                throw new IllegalArgumentException("--record needs --fixtures=<dir> to write to");
+            }
+            return o;
+        }
+
+        private static Duration duration(String value, Duration fallback) {
+            return value == null ? fallback : DurationStyle.detectAndParse(value);
+        }
+    }
+
+    private final Options options;
+    private final Faults faults;
+    private final HttpServer server;
+    private final HttpClient upstream;
+    private final Map<String, byte[]> inflated = new ConcurrentHashMap<>();
+    private final AtomicLong tokens = new AtomicLong();
+
+    private JourneyServiceSimulator(Options options) throws IOException {
+        this.options = options;
+        this.faults = options.record() != null
+                ? Faults.none()
+                : new Faults(options.latencyMedian(), options.latencyP99(), options.errorRate(), options.throttleRps(), options.seed());
+        this.upstream = options.record() != null ? HttpClient.newHttpClient() : null;
+        this.server = HttpServer.create(new InetSocketAddress(options.port()), 0);
+        // simulierte Latenz blockiert, deshalb ein virtueller Thread pro Request
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+    }
+
+    public static JourneyServiceSimulator start(Options options) throws IOException {
+        var simulator = new JourneyServiceSimulator(options);
+        simulator.server.start();
+        return simulator;
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        var options = Options.parse(args);
+        var simulator = start(options);
+        log.info("journey-service simulator on http://localhost:{} ({})", simulator.port(),
+                options.record() != null ? "record -> " + options.record() : "replay");
+        log.info("  JOURNEY_SERVICE_BASE=http://localhost:{} JOURNEY_SERVICE_TOKEN_URI=http://localhost:{}/oauth2/v2.0/token",
+                simulator.port(), simulator.port());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        int status;
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            if (path.endsWith("/token")) {
+                status = respond(exchange, 200, token());
+            } else if (options.record() != null) {
+                status = record(exchange, body);
+            } else {
+                status = replay(exchange, path, body);
+            }
+        } catch (RuntimeException e) {
+            status = 500;
+            log.warn("simulator: {} {} failed", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+        }
+        log.debug("{} {} -> {} ({} ms)", exchange.getRequestMethod(), exchange.getRequestURI(), status,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private int replay(HttpExchange exchange, String path, byte[] body) throws IOException {
+        sleep(faults.nextLatency());
+        if (faults.throttled()) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            return respond(exchange, 429, error(429, "Too Many Requests"));
+        }
+        int error = faults.nextError();
+        if (error != 0) return respond(exchange, error, error(error, "Simulated failure"));
+
+        if (path.equals(TRIPS_PATH) && "POST".equals(exchange.getRequestMethod())) {
+            return respond(exchange, 200, trips(MAPPER.readTree(body)));
+        }
+        if (path.equals(PLACES_PATH) && "GET".equals(exchange.getRequestMethod())) {
+            return respond(exchange, 200, places(query(exchange.getRequestURI()).getOrDefault("nameMatch", "")));
+        }
+        return respond(exchange, 404, error(404, "Not simulated: " + path));
+    }
+
+    private byte[] trips(JsonNode request) {
+        String name = "trips-" + slug(request.path("origin").asText()) + "-" + slug(request.path("destination").asText()) + ".json";
+        byte[] recorded = fixture(name);
+        String key = recorded != null ? name : DEFAULT_TRIPS;
+        byte[] payload = recorded != null ? recorded : classpath(DEFAULT_TRIPS);
+        if (options.payloadBytes() <= payload.length) return payload;
+        return inflated.computeIfAbsent(key, k -> inflate(payload, options.payloadBytes()));
+    }
+
+    private byte[] places(String nameMatch) throws IOException {
+        byte[] recorded = fixture("places-" + slug(nameMatch) + ".json");
+        if (recorded != null) return recorded;
+        // stabile, plausible UIC-Nummer pro Name; die Trips-Antwort ist davon unabhaengig
+        String id = "85" + String.format("%05d", Math.floorMod(nameMatch.toLowerCase(Locale.ROOT).hashCode(), 100_000));
+        ObjectNode root = MAPPER.createObjectNode();
+        root.putArray("places").addObject()
+                .put("type", "StopPlace")
+                .put("id", id)
+                .put("name", nameMatch);
+        return MAPPER.writeValueAsBytes(root);
+    }
+
+    private byte[] token() {
+        ObjectNode root = MAPPER.createObjectNode()
+                .put("token_type", "Bearer")
+                .put("expires_in", options.tokenTtlSeconds())
+                .put("access_token", "simulated-" + tokens.incrementAndGet());
+        return write(root);
+    }
+
+    private int record(HttpExchange exchange, byte[] body) throws IOException {
+        URI uri = exchange.getRequestURI();
+        var request = HttpRequest.newBuilder(options.record().resolve(uri.getRawPath()
+                        + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery())))
+                .method(exchange.getRequestMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        FORWARDED_HEADERS.forEach(h -> {
+            String value = exchange.getRequestHeaders().getFirst(h);
+            if (value != null) request.header(h, value);
+        });
+        HttpResponse<byte[]> response;
+        try {
+            response = upstream.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return respond(exchange, 502, error(502, "Interrupted"));
+        }
+        if (response.statusCode() == 200) {
+            String name = switch (uri.getPath()) {
+                case TRIPS_PATH -> {
+                    JsonNode req = MAPPER.readTree(body);
+                    yield "trips-" + slug(req.path("origin").asText()) + "-" + slug(req.path("destination").asText()) + ".json";
+                }
+                case PLACES_PATH -> "places-" + slug(query(uri).getOrDefault("nameMatch", "")) + ".json";
+                default -> null;
+            };
+            if (name != null) {
+                Files.createDirectories(options.fixtures());
+                Files.write(options.fixtures().resolve(name), response.body());
+            }
+        }
+        return respond(exchange, response.statusCode(), response.body());
+    }
+
+    /** Trips replizieren, bis die Antwort mindestens targetBytes gross ist (gleiche Struktur, eindeutige ids). */
+    static byte[] inflate(byte[] payload, int targetBytes) {
+        try {
+            JsonNode root = MAPPER.readTree(payload);
+            ArrayNode source = (ArrayNode) root.path("trips");
+            if (source.isEmpty()) return payload;
+            // kompakt serialisiert, aufgenommene Fixtures sind oft pretty-printed
+            int perTrip = Math.max(1, MAPPER.writeValueAsBytes(source).length / source.size());
+            ObjectNode out = ((ObjectNode) root).deepCopy();
+            ArrayNode trips = out.putArray("trips");
+            for (int i = 0; (long) trips.size() * perTrip < targetBytes; i++) {
+                ObjectNode copy = source.get(i % source.size()).deepCopy();
+                copy.put("id", "t" + i);
+                trips.add(copy);
+            }
+            return MAPPER.writeValueAsBytes(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] fixture(String name) {
+        if (options.fixtures() == null) return null;
+        Path file = options.fixtures().resolve(name);
+        try {
+            return Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] classpath(String resource) {
+        try (InputStream in = JourneyServiceSimulator.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IllegalStateException("Missing fixture " + resource);
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        return status;
+    }
+
+    private static byte[] error(int status, String message) {
+        return write(MAPPER.createObjectNode().put("status", status).put("message", message));
+    }
+
+    private static byte[] write(JsonNode node) {
+        try {
+            return MAPPER.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        if (uri.getRawQuery() == null) return params;
+        for (String pair : uri.getRawQuery().split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    static String slug(String value) {
+        return value.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", "_");
+    }
+
+    private static void sleep(Duration latency) {
+        if (latency.isZero()) return;
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package ch.thp.cas.chattenderfahrplan.simulator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JourneyServiceSimulatorTest {
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private JourneyServiceSimulator simulator;
+
+    @AfterEach
+    void tearDown() {
+        if (simulator != null) simulator.close();
+    }
+
+    @Test
+    void replaysTokenPlacesAndTrips() throws Exception {
+        simulator = JourneyServiceSimulator.start(JourneyServiceSimulator.Options.parse("--port=0"));
+
+        var token = mapper.readTree(post("/oauth2/v2.0/token", "grant_type=client_credentials").body());
+        assertThat(token.path("access_token").asText()).startsWith("simulated-");
+
+        var places = mapper.readTree(get("/v3/places?nameMatch=Bern&type=StopPlace").body());
+        assertThat(places.path("places").get(0).path("type").asText()).isEqualTo("StopPlace");
+
+        var trips = post(JourneyServiceSimulator.TRIPS_PATH, "{\"origin\":\"8507000\",\"destination\":\"8503000\"}");
+        assertThat(trips.statusCode()).isEqualTo(200);
+        assertThat(mapper.readTree(trips.body()).path("trips").size()).isPositive();
+    }
+
+    @Test
+    void inflatesTripsToPayloadSize() throws Exception {
+        simulator = JourneyServiceSimulator.start(JourneyServiceSimulator.Options.parse("--port=0", "--payload-bytes=1000000"));
+
+        var trips = post(JourneyServiceSimulator.TRIPS_PATH, "{\"origin\":\"8507000\",\"destination\":\"8503000\"}");
+
+        assertThat(trips.body().length()).isGreaterThanOrEqualTo(1_000_000);
+    }
+
+    @Test
+    void throttlesAndFails() throws Exception {
+        simulator = JourneyServiceSimulator.start(JourneyServiceSimulator.Options.parse("--port=0", "--throttle-rps=1"));
+        get("/v3/places?nameMatch=Bern");
+        var throttled = get("/v3/places?nameMatch=Bern");
+        assertThat(throttled.statusCode()).isEqualTo(429);
+        assertThat(throttled.headers().firstValue("Retry-After")).contains("1");
+
+        simulator.close();
+        simulator = JourneyServiceSimulator.start(JourneyServiceSimulator.Options.parse("--port=0", "--error-rate=1"));
+        assertThat(get("/v3/places?nameMatch=Bern").statusCode()).isBetween(500, 504);
+    }
+
+    @Test
+    void latencyFollowsMedian() {
+        var faults = new Faults(Duration.ofMillis(100), Duration.ofMillis(400), 0, 0, 1);
+        long below = IntStream.range(0, 10_000)
+                .filter(i -> faults.nextLatency().compareTo(Duration.ofMillis(100)) < 0)
+                .count();
+        assertThat(below).isBetween(4_700L, 5_300L);
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return http.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return http.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + simulator.port() + path);
+    }
+}